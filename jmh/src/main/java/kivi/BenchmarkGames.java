@@ -0,0 +1,30 @@
+package kivi;
+
+/**
+ * Games the benchmarks start from, played a few turns in by the Easy CPU
+ * so the board looks like a real one mid-game.
+ */
+final class BenchmarkGames {
+    private BenchmarkGames() {
+    }
+
+    /**
+     * The standard board with two players, eight turns in.
+     */
+    static GameEngine midGame(long seed) {
+        return midGame(BoardRules.standard(), 2, 8, seed);
+    }
+
+    /**
+     * 'turns' turns of Easy play on 'rules', then a fresh turn.
+     */
+    static GameEngine midGame(BoardRules rules, int playerCount, int turns, long seed) {
+        GameEngine engine = new GameEngine(rules, playerCount, new RollADice(seed));
+        EasyCpuStrategy easy = new EasyCpuStrategy();
+        for (int turn = 0; turn < turns && !engine.isGameOver(); turn++) {
+            engine.playCpuTurn(easy);
+        }
+        engine.startTurn();
+        return engine;
+    }
+}
@@ -0,0 +1,46 @@
+package kivi;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A whole two-player game on the standard board, both seats played by
+ * the same CPU difficulty.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FullGameBenchmarks {
+    @Param({ "Easy", "Hard" })
+    public String difficulty;
+
+    private final GameEngine game = new GameEngine(BoardRules.standard(), 2, new RollADice(11));
+    private CpuStrategy strategy;
+
+    @Setup
+    public void setUp() {
+        strategy = CpuStrategy.forDifficulty(difficulty);
+    }
+
+    @Benchmark
+    public int fullGame() {
+        game.getState().reset();
+        while (!game.isGameOver()) {
+            game.playCpuTurn(strategy);
+        }
+        return game.getState().getScore(0);
+    }
+}
@@ -0,0 +1,61 @@
+package kivi;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The rule checks and the dice: one placement check per square type
+ * against every dice multiset in turn, and a fresh six-dice roll.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmarks {
+    @Param({ "AA/BB", "AAA", "ABCD", "AAA/BB", "AAAA", "ABCDE", "≤12", "≥30", "=1,3,5", "=2,4,6",
+            "AA/BB/CC", "AAA/BBB", "AAAA/BB" })
+    public String combination;
+
+    private int combinationIndex;
+    private final int[] histograms = new int[DiceHistogram.MULTISET_COUNT];
+    private int next;
+    private final RollADice dice = new RollADice(7);
+
+    @Setup
+    public void setUp() {
+        combinationIndex = Arrays.asList(PlaceAPiece.COMBINATIONS).indexOf(combination);
+        if (combinationIndex < 0) {
+            throw new IllegalArgumentException("Unknown combination: " + combination);
+        }
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = DiceHistogram.byIndex(i);
+        }
+    }
+
+    @Benchmark
+    public boolean isValidPlacement() {
+        int histogram = histograms[next];
+        next = next + 1 == histograms.length ? 0 : next + 1;
+        return PlaceAPiece.isValidPlacement(combinationIndex, histogram);
+    }
+
+    @Benchmark
+    public int rollDice() {
+        dice.resetForNextTurn();
+        dice.rollDice();
+        return dice.getRollHistogram();
+    }
+}
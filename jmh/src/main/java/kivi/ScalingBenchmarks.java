@@ -0,0 +1,62 @@
+package kivi;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * How the hot paths scale with the board: the standard layout repeated to
+ * boardSize x boardSize, 4 players a few turns in with a fifth of the
+ * squares taken (fewer on 15x15, where stones run out first).
+ * scoreDelta is one call per op, cycling through the squares.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalingBenchmarks {
+    private static final int PLAYERS = 4;
+
+    @Param({ "7", "9", "11", "15" })
+    public int boardSize;
+
+    private GameEngine engine;
+    private final MoveGenerator moves = new MoveGenerator();
+    private int nextSquare;
+
+    @Setup
+    public void setUp() {
+        int turns = Math.min(boardSize * boardSize / 5, PLAYERS * (GameState.STONES_PER_PLAYER - 1));
+        engine = BenchmarkGames.midGame(BoardRules.standard(boardSize), PLAYERS, turns, 42);
+    }
+
+    @Benchmark
+    public int moveGeneration() {
+        engine.startTurn();
+        engine.rollDice();
+        return moves.generate(engine);
+    }
+
+    @Benchmark
+    public int scoreDelta() {
+        int square = nextSquare;
+        nextSquare = square + 1 == engine.getState().getSquareCount() ? 0 : square + 1;
+        return engine.getScoreDelta(square);
+    }
+
+    @Benchmark
+    public int score() {
+        return engine.getScorer().score(engine.getState(), engine.getCurrentPlayer());
+    }
+}
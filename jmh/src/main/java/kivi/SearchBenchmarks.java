@@ -0,0 +1,78 @@
+package kivi;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The move searches behind the CPU players and the board highlights, on
+ * a standard board eight turns in. Searches start from a fresh roll.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmarks {
+    private final GameEngine midGame = BenchmarkGames.midGame(42);
+    private final EasyCpuStrategy easy = new EasyCpuStrategy();
+    private final ExpectimaxCpuStrategy hard = new ExpectimaxCpuStrategy();
+    private final MoveGenerator moves = new MoveGenerator();
+    private final long[] validSquares = Bitboard.create(midGame.getState().getSquareCount());
+    private int keepMask;
+
+    @Benchmark
+    public int subsetSearch() {
+        midGame.startTurn();
+        midGame.rollDice();
+        return easy.decide(midGame);
+    }
+
+    @Benchmark
+    public int moveGeneration() {
+        midGame.startTurn();
+        midGame.rollDice();
+        return moves.generate(midGame);
+    }
+
+    @Benchmark
+    public int highlightValidMoves() {
+        keepMask = (keepMask + 1) & 0x3F;
+        midGame.getDiceLogic().setKeepMask(keepMask);
+        midGame.getValidSquares(midGame.getDiceLogic().getKeptHistogram(), validSquares);
+        int highlighted = 0;
+        for (int square = 0; square < midGame.getState().getSquareCount(); square++) {
+            if (Bitboard.get(validSquares, square)) {
+                highlighted++;
+            }
+        }
+        return highlighted;
+    }
+
+    // Every free square of the board
+    @Benchmark
+    public int scoreDelta() {
+        int total = 0;
+        for (int square = 0; square < midGame.getState().getSquareCount(); square++) {
+            if (midGame.isFree(square)) {
+                total += midGame.getScoreDelta(square);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int expectimaxDecision() {
+        midGame.startTurn();
+        midGame.rollDice();
+        return hard.decide(midGame);
+    }
+}
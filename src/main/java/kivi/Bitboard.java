@@ -0,0 +1,74 @@
+package kivi;
+
+/**
+ * A set of board squares as a bitboard of 64-bit words: square s is bit
+ * (s & 63) of word (s >>> 6), so boards of any size up to
+ * GameState.MAX_BOARD_SIZE fit in a few words (one word up to 8x8, four
+ * at 15x15). Like DiceHistogram these are static helpers over plain
+ * arrays, so hot paths work word by word without objects or copies.
+ */
+public final class Bitboard {
+    private Bitboard() {
+    }
+
+    /**
+     * Number of words needed for 'squares' squares.
+     */
+    public static int words(int squares) {
+        return (squares + Long.SIZE - 1) >>> 6;
+    }
+
+    /**
+     * An empty bitboard for 'squares' squares.
+     */
+    public static long[] create(int squares) {
+        return new long[words(squares)];
+    }
+
+    public static boolean get(long[] board, int square) {
+        return (board[square >>> 6] & (1L << square)) != 0;
+    }
+
+    public static void set(long[] board, int square) {
+        board[square >>> 6] |= 1L << square;
+    }
+
+    public static void clear(long[] board, int square) {
+        board[square >>> 6] &= ~(1L << square);
+    }
+
+    /**
+     * The first square in the set at or after 'from', or -1 if there is none.
+     */
+    public static int next(long[] board, int from) {
+        int word = from >>> 6;
+        if (word >= board.length) {
+            return -1;
+        }
+        long bits = board[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == board.length) {
+                return -1;
+            }
+            bits = board[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    public static int count(long[] board) {
+        int count = 0;
+        for (long word : board) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public static boolean isEmpty(long[] board) {
+        for (long word : board) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,311 @@
+package kivi;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import javax.swing.*;
+
+/**
+ * The game board as one component instead of a button per square:
+ * - Every square is drawn from a pre-rendered tile image (one per square
+ *   type and background) and stones from pre-rendered stone images; the
+ *   images are rebuilt only when the square size or the colors change
+ * - Clicks are mapped to a square from the mouse position
+ * - Changing highlights or stones repaints only the squares that changed
+ * - A new color-blindness mode rebuilds the images (themeChanged)
+ * Swing thread only.
+ */
+public class BoardCanvas extends JComponent implements DisplaySettings.ColorBlindnessFilter.Themed {
+    private static final int MARGIN = 10;
+    private static final int GAP = 2;
+    private static final int PREFERRED_BOARD = 7 * 80; // the standard board at 80 pixels a square
+    private static final int MIN_SQUARE = 30;
+    private static final Font TYPE_FONT = new Font("Arial", Font.BOLD, 12);
+
+    // Square backgrounds by points, plus the highlight for legal squares
+    private static final Color WHITE_SQUARE = Color.WHITE;
+    private static final Color PINK_SQUARE = new Color(255, 182, 193);
+    private static final Color HOT_PINK_SQUARE = new Color(255, 105, 180);
+    private static final Color HIGHLIGHT = Color.GREEN.brighter();
+    private static final Color[] BACKGROUNDS = { WHITE_SQUARE, PINK_SQUARE, HOT_PINK_SQUARE, HIGHLIGHT };
+    private static final int HIGHLIGHTED = 3; // index into BACKGROUNDS
+
+    /**
+     * Receives clicks on a square.
+     */
+    public interface SquareListener {
+        void squareClicked(int row, int col);
+    }
+
+    private final int boardSize;
+    private final String[] squareTypes;
+    private final int[] squareBackgrounds; // index into BACKGROUNDS per square
+    private final Color[] playerColors;
+
+    private final int[] owners; // committed stone per square, or GameState.EMPTY
+    private final long[] highlighted; // Bitboard
+    private int pendingSquare = -1;
+    private int pendingPlayer;
+    private SquareListener listener;
+    private int pressedSquare = -1;
+
+    // Image caches for the current square size, built on first paint
+    private int tileWidth;
+    private int tileHeight;
+    private BufferedImage[][] tiles; // [type index][background]
+    private BufferedImage[] stones; // per player
+    private String[] tileTypes; // the distinct square types, tiles' first index
+    private int[] squareTiles; // per square, its index into tileTypes
+
+    public BoardCanvas(GameEngine engine, Color[] playerColors) {
+        this.boardSize = engine.getBoardSize();
+        this.playerColors = playerColors;
+        int squares = boardSize * boardSize;
+        squareTypes = new String[squares];
+        squareBackgrounds = new int[squares];
+        owners = new int[squares];
+        highlighted = Bitboard.create(squares);
+        for (int square = 0; square < squares; square++) {
+            squareTypes[square] = engine.getSquareType(square);
+            int points = engine.getSquarePoints(square);
+            squareBackgrounds[square] = points <= 1 ? 0 : points == 2 ? 1 : 2;
+            owners[square] = GameState.EMPTY;
+        }
+        indexTileTypes();
+
+        int square = Math.max(MIN_SQUARE, PREFERRED_BOARD / boardSize);
+        int side = 2 * MARGIN + boardSize * square + (boardSize - 1) * GAP;
+        setPreferredSize(new Dimension(side, side));
+        setOpaque(true);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressedSquare = SwingUtilities.isLeftMouseButton(e) ? squareAt(e.getX(), e.getY()) : -1;
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                // Like a button: press and release on the same square
+                int square = squareAt(e.getX(), e.getY());
+                if (square >= 0 && square == pressedSquare && listener != null) {
+                    listener.squareClicked(square / boardSize, square % boardSize);
+                }
+                pressedSquare = -1;
+            }
+        };
+        addMouseListener(mouse);
+    }
+
+    public void setSquareListener(SquareListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Highlight the squares set in 'squares' (a Bitboard), clearing the rest.
+     */
+    public void setHighlights(long[] squares) {
+        for (int word = 0; word < highlighted.length; word++) {
+            long changed = highlighted[word] ^ squares[word];
+            highlighted[word] = squares[word];
+            while (changed != 0) {
+                repaintSquare((word << 6) + Long.numberOfTrailingZeros(changed));
+                changed &= changed - 1;
+            }
+        }
+    }
+
+    public void clearHighlights() {
+        setHighlights(new long[highlighted.length]);
+    }
+
+    /**
+     * Put a committed stone of 'player' on 'square'.
+     */
+    public void setStone(int square, int player) {
+        if (owners[square] != player) {
+            owners[square] = player;
+            repaintSquare(square);
+        }
+    }
+
+    /**
+     * Show this turn's tentative stone on 'square', or none for -1.
+     */
+    public void setPendingStone(int square, int player) {
+        if (square == pendingSquare && player == pendingPlayer) {
+            return;
+        }
+        if (pendingSquare >= 0) {
+            repaintSquare(pendingSquare);
+        }
+        pendingSquare = square;
+        pendingPlayer = player;
+        if (square >= 0) {
+            repaintSquare(square);
+        }
+    }
+
+    /**
+     * The tentative stone stays on the board as a committed one.
+     */
+    public void commitPendingStone() {
+        if (pendingSquare >= 0) {
+            owners[pendingSquare] = pendingPlayer;
+            pendingSquare = -1;
+        }
+    }
+
+    /**
+     * Drop the cached images, e.g. after the colors changed; the whole
+     * board is redrawn from new ones.
+     */
+    public void invalidateTiles() {
+        tiles = null;
+        repaint();
+    }
+
+    @Override
+    public void themeChanged() {
+        invalidateTiles();
+    }
+
+    // -------------------- Geometry --------------------
+
+    private int cellWidth() {
+        return Math.max(1, (getWidth() - 2 * MARGIN - (boardSize - 1) * GAP) / boardSize);
+    }
+
+    private int cellHeight() {
+        return Math.max(1, (getHeight() - 2 * MARGIN - (boardSize - 1) * GAP) / boardSize);
+    }
+
+    // Square under (x, y), or -1 for the margin and the gaps between squares
+    private int squareAt(int x, int y) {
+        int col = Math.floorDiv(x - MARGIN, cellWidth() + GAP);
+        int row = Math.floorDiv(y - MARGIN, cellHeight() + GAP);
+        if (row < 0 || col < 0 || row >= boardSize || col >= boardSize
+                || x - MARGIN - col * (cellWidth() + GAP) >= cellWidth()
+                || y - MARGIN - row * (cellHeight() + GAP) >= cellHeight()) {
+            return -1;
+        }
+        return row * boardSize + col;
+    }
+
+    private void repaintSquare(int square) {
+        int width = cellWidth();
+        int height = cellHeight();
+        repaint(MARGIN + (square % boardSize) * (width + GAP), MARGIN + (square / boardSize) * (height + GAP),
+                width, height);
+    }
+
+    // -------------------- Painting --------------------
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = cellWidth();
+        int height = cellHeight();
+        if (tiles == null || width != tileWidth || height != tileHeight) {
+            buildImages(width, height);
+        }
+
+        g.setColor(getBackground() != null ? getBackground() : UIManager.getColor("Panel.background"));
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // Only the squares inside the dirty region
+        int firstCol = Math.max(0, (clip.x - MARGIN) / (width + GAP));
+        int lastCol = Math.min(boardSize - 1, (clip.x + clip.width - MARGIN) / (width + GAP));
+        int firstRow = Math.max(0, (clip.y - MARGIN) / (height + GAP));
+        int lastRow = Math.min(boardSize - 1, (clip.y + clip.height - MARGIN) / (height + GAP));
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int square = row * boardSize + col;
+                int x = MARGIN + col * (width + GAP);
+                int y = MARGIN + row * (height + GAP);
+                int background = Bitboard.get(highlighted, square) ? HIGHLIGHTED : squareBackgrounds[square];
+                g.drawImage(tiles[squareTiles[square]][background], x, y, null);
+                int owner = square == pendingSquare ? pendingPlayer : owners[square];
+                if (owner != GameState.EMPTY) {
+                    g.drawImage(stones[owner], x, y, null);
+                }
+            }
+        }
+    }
+
+    private void indexTileTypes() {
+        ArrayList<String> types = new ArrayList<>();
+        squareTiles = new int[squareTypes.length];
+        for (int square = 0; square < squareTypes.length; square++) {
+            int index = types.indexOf(squareTypes[square]);
+            if (index < 0) {
+                index = types.size();
+                types.add(squareTypes[square]);
+            }
+            squareTiles[square] = index;
+        }
+        tileTypes = types.toArray(new String[0]);
+    }
+
+    private void buildImages(int width, int height) {
+        tileWidth = width;
+        tileHeight = height;
+        GraphicsConfiguration config = getGraphicsConfiguration();
+
+        // Large boards get small squares: shrink the type names to fit
+        FontMetrics typeMetrics = getFontMetrics(TYPE_FONT);
+        int widest = 1;
+        for (String type : tileTypes) {
+            widest = Math.max(widest, typeMetrics.stringWidth(type));
+        }
+        Font font = widest <= width - 4 ? TYPE_FONT
+                : TYPE_FONT.deriveFont(Math.max(6f, TYPE_FONT.getSize2D() * (width - 4) / widest));
+
+        tiles = new BufferedImage[tileTypes.length][BACKGROUNDS.length];
+        for (int type = 0; type < tileTypes.length; type++) {
+            for (int background = 0; background < BACKGROUNDS.length; background++) {
+                BufferedImage tile = createImage(config, width, height, Transparency.OPAQUE);
+                Graphics2D g = tile.createGraphics();
+                g.setColor(DisplaySettings.ColorBlindnessFilter.transformColor(BACKGROUNDS[background]));
+                g.fillRect(0, 0, width, height);
+                g.setColor(Color.BLACK);
+                g.drawRect(0, 0, width - 1, height - 1);
+                g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g.setFont(font);
+                FontMetrics metrics = g.getFontMetrics();
+                String text = tileTypes[type];
+                g.drawString(text, (width - metrics.stringWidth(text)) / 2,
+                        (height - metrics.getHeight()) / 2 + metrics.getAscent());
+                g.dispose();
+                tiles[type][background] = tile;
+            }
+        }
+
+        stones = new BufferedImage[playerColors.length];
+        for (int player = 0; player < playerColors.length; player++) {
+            BufferedImage stone = createImage(config, width, height, Transparency.TRANSLUCENT);
+            Graphics2D g = stone.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(playerColors[player]);
+            g.fillOval(1, 1, width - 2, height - 2);
+            g.setColor(Color.BLACK);
+            g.drawOval(1, 1, width - 3, height - 3);
+            g.dispose();
+            stones[player] = stone;
+        }
+    }
+
+    // Images in the screen's own format draw fastest
+    private static BufferedImage createImage(GraphicsConfiguration config, int width, int height, int transparency) {
+        if (config != null) {
+            return config.createCompatibleImage(width, height, transparency);
+        }
+        return new BufferedImage(width, height,
+                transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+}
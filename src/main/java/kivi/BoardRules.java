@@ -0,0 +1,433 @@
+package kivi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A board layout and its combinations, read from a small text definition
+ * and compiled once into per-multiset tables, so rule checks are array
+ * reads with no strings involved. A definition has one statement per line
+ * ('#' starts a comment):
+ *
+ *   size 7
+ *   combo AAA/BB 1 groups 3 2      name, points, dice pattern
+ *   special anywhere groups 5      the pattern may go on any free square
+ *   special capture groups 6       ... or on another player's stone
+ *   row AA/BB ABCDE ...            one per board row, 'size' combo names
+ *
+ * A dice pattern is one or more clauses, all of which must hold (and at
+ * least one die must be kept):
+ * - groups a b ...   distinct faces showing at least a, b, ... dice
+ * - faces f ...      at least one die of each of these faces
+ * - only f ...       no die of any other face
+ * - sum OP n         the dice add up to OP n (OP is <=, >= or =)
+ * - dice OP n        OP n dice are kept; "dice n" means exactly n
+ *
+ * The standard board (standard()) is defined the same way, in STANDARD;
+ * standard(size) repeats its layout over a larger board.
+ */
+public final class BoardRules {
+    public static final String STANDARD = String.join("\n",
+            "# The board printed in the box",
+            "size 7",
+            "",
+            "combo AA/BB     1 groups 2 2",
+            "combo AAA       1 groups 3",
+            "combo ABCD      1 faces 1 2 3 4",
+            "combo AAA/BB    1 groups 3 2",
+            "combo AAAA      2 groups 4",
+            "combo ABCDE     2 faces 1 2 3 4 5",
+            "combo ≤12       2 sum <= 12",
+            "combo ≥30       2 sum >= 30",
+            "combo =1,3,5    0 dice 6 only 1 3 5",
+            "combo =2,4,6    0 dice 6 only 2 4 6",
+            "combo AA/BB/CC  3 groups 2 2 2",
+            "combo AAA/BBB   3 groups 3 3",
+            "combo AAAA/BB   3 groups 4 2",
+            "",
+            "# From the manual: five of a kind or a 1-6 straight goes anywhere,",
+            "# six of a kind may even take another player's square",
+            "special anywhere groups 5",
+            "special anywhere faces 1 2 3 4 5 6",
+            "special capture groups 6",
+            "",
+            "row AA/BB    ABCDE    ≤12      AAA      =1,3,5   =2,4,6   AAA",
+            "row =2,4,6   AAAA/BB  AAA      AA/BB/CC ABCD     AAA/BBB  ≥30",
+            "row ABCD     AAAA     ≥30      ABCDE    AAAA/BB  =1,3,5   AAA/BB",
+            "row ≤12      AAA/BB   =2,4,6   AAA/BBB  ≤12      AA/BB    ABCDE",
+            "row AAA      ABCDE    AA/BB/CC =1,3,5   AAAA     ≥30      AA/BB",
+            "row =1,3,5   AAA/BBB  ABCD     AAAA/BB  AAA/BB   AA/BB/CC ≤12",
+            "row ABCD     ≥30      AAAA     AA/BB    =1,3,5   AAAA     AAA/BB",
+            "");
+
+    private static final BoardRules STANDARD_RULES = parse(STANDARD);
+
+    private final String definition;
+    private final int boardSize;
+    private final String[] combinationNames;
+    private final String[] squareTypes;
+    private final int[] squareCombinations;
+    private final int[] squarePoints;
+
+    // Compiled tables, indexed by DiceHistogram index
+    private final int[] combinationMasks = new int[DiceHistogram.MULTISET_COUNT]; // bit c: fulfills combination c
+    private final long[][] squareMasks = new long[DiceHistogram.MULTISET_COUNT][]; // Bitboards of squares the dice may go on
+    private final boolean[] captures = new boolean[DiceHistogram.MULTISET_COUNT]; // may take an occupied square
+
+    private BoardRules(String definition, int boardSize, String[] combinationNames, IntPredicate[] combinations,
+            int[] combinationPoints, IntPredicate anywhere, IntPredicate capture, int[] squareCombinations) {
+        this.definition = definition;
+        this.boardSize = boardSize;
+        this.combinationNames = combinationNames;
+        int squares = squareCombinations.length;
+        squareTypes = new String[squares];
+        this.squareCombinations = squareCombinations;
+        squarePoints = new int[squares];
+        for (int square = 0; square < squares; square++) {
+            int combination = squareCombinations[square];
+            squareTypes[square] = combinationNames[combination];
+            squarePoints[square] = combinationPoints[combination];
+        }
+
+        for (int index = 0; index < DiceHistogram.MULTISET_COUNT; index++) {
+            int histogram = DiceHistogram.byIndex(index);
+            for (int combination = 0; combination < combinations.length; combination++) {
+                if (combinations[combination].test(histogram)) {
+                    combinationMasks[index] |= 1 << combination;
+                }
+            }
+            captures[index] = capture.test(histogram);
+            boolean everywhere = captures[index] || anywhere.test(histogram);
+            squareMasks[index] = Bitboard.create(squares);
+            for (int square = 0; square < squares; square++) {
+                if (everywhere || (combinationMasks[index] & (1 << squareCombinations[square])) != 0) {
+                    Bitboard.set(squareMasks[index], square);
+                }
+            }
+        }
+    }
+
+    /**
+     * The board printed in the box (STANDARD), compiled once.
+     */
+    public static BoardRules standard() {
+        return STANDARD_RULES;
+    }
+
+    /**
+     * The standard board's combinations with its layout repeated over a
+     * boardSize x boardSize board (the standard board itself for its size).
+     */
+    public static BoardRules standard(int boardSize) {
+        int standardSize = STANDARD_RULES.getBoardSize();
+        if (boardSize == standardSize) {
+            return STANDARD_RULES;
+        }
+        StringBuilder definition = new StringBuilder("# The board printed in the box, repeated to ")
+                .append(boardSize).append('x').append(boardSize).append("\nsize ").append(boardSize).append('\n');
+        for (String line : STANDARD.split("\n")) {
+            if (line.startsWith("combo ") || line.startsWith("special ")) {
+                definition.append(line).append('\n');
+            }
+        }
+        for (int row = 0; row < boardSize; row++) {
+            definition.append("row");
+            for (int col = 0; col < boardSize; col++) {
+                int square = (row % standardSize) * standardSize + col % standardSize;
+                definition.append(' ').append(STANDARD_RULES.getSquareType(square));
+            }
+            definition.append('\n');
+        }
+        return parse(definition.toString());
+    }
+
+    /**
+     * Read and compile a definition file (UTF-8).
+     */
+    public static BoardRules load(Path path) throws IOException {
+        String definition = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        try {
+            return parse(definition);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compile a definition. Throws IllegalArgumentException, naming the
+     * line, if it is malformed.
+     */
+    public static BoardRules parse(String definition) {
+        int size = -1;
+        ArrayList<String> names = new ArrayList<>();
+        ArrayList<IntPredicate> combinations = new ArrayList<>();
+        ArrayList<Integer> points = new ArrayList<>();
+        IntPredicate anywhere = histogram -> false;
+        IntPredicate capture = histogram -> false;
+        ArrayList<String[]> rows = new ArrayList<>();
+
+        String[] lines = definition.split("\r?\n");
+        for (int line = 1; line <= lines.length; line++) {
+            String text = lines[line - 1];
+            int comment = text.indexOf('#');
+            text = (comment >= 0 ? text.substring(0, comment) : text).trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            String[] tokens = text.split("\\s+");
+            switch (tokens[0]) {
+                case "size":
+                    expect(tokens.length == 2, line, "expected: size N");
+                    size = number(tokens[1], line);
+                    expect(size >= 2 && size <= GameState.MAX_BOARD_SIZE, line,
+                            "board size must be 2 to " + GameState.MAX_BOARD_SIZE);
+                    break;
+                case "combo":
+                    expect(tokens.length >= 4, line, "expected: combo NAME POINTS PATTERN");
+                    expect(!names.contains(tokens[1]), line, "combination " + tokens[1] + " defined twice");
+                    expect(names.size() < Integer.SIZE, line, "at most " + Integer.SIZE + " combinations");
+                    names.add(tokens[1]);
+                    points.add(number(tokens[2], line));
+                    combinations.add(pattern(tokens, 3, line));
+                    break;
+                case "special":
+                    expect(tokens.length >= 3, line, "expected: special anywhere|capture PATTERN");
+                    if (tokens[1].equals("anywhere")) {
+                        anywhere = anywhere.or(pattern(tokens, 2, line));
+                    } else if (tokens[1].equals("capture")) {
+                        capture = capture.or(pattern(tokens, 2, line));
+                    } else {
+                        throw error(line, "unknown special " + tokens[1]);
+                    }
+                    break;
+                case "row":
+                    rows.add(Arrays.copyOfRange(tokens, 1, tokens.length));
+                    break;
+                default:
+                    throw error(line, "unknown statement " + tokens[0]);
+            }
+        }
+
+        expect(size > 0, lines.length, "missing size");
+        expect(rows.size() == size, lines.length, "expected " + size + " rows, got " + rows.size());
+        int[] squareCombinations = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            String[] types = rows.get(row);
+            expect(types.length == size, lines.length, "row " + (row + 1) + " has " + types.length + " squares");
+            for (int col = 0; col < size; col++) {
+                int combination = names.indexOf(types[col]);
+                expect(combination >= 0, lines.length, "row " + (row + 1) + ": unknown combination " + types[col]);
+                squareCombinations[row * size + col] = combination;
+            }
+        }
+        int[] combinationPoints = new int[points.size()];
+        for (int i = 0; i < combinationPoints.length; i++) {
+            combinationPoints[i] = points.get(i);
+        }
+        return new BoardRules(definition, size, names.toArray(new String[0]),
+                combinations.toArray(new IntPredicate[0]), combinationPoints, anywhere, capture, squareCombinations);
+    }
+
+    // -------------------- Dice patterns --------------------
+
+    // Clauses from tokens[start] on, ANDed; no kept dice never match
+    private static IntPredicate pattern(String[] tokens, int start, int line) {
+        IntPredicate predicate = histogram -> histogram != DiceHistogram.EMPTY;
+        int i = start;
+        while (i < tokens.length) {
+            String clause = tokens[i++];
+            int end = i;
+            while (end < tokens.length && isClauseArgument(tokens[end])) {
+                end++;
+            }
+            String[] arguments = Arrays.copyOfRange(tokens, i, end);
+            i = end;
+            switch (clause) {
+                case "groups":
+                    predicate = predicate.and(groups(faceCounts(arguments, line)));
+                    break;
+                case "faces": {
+                    int[] faces = faceCounts(arguments, line);
+                    predicate = predicate.and(histogram -> {
+                        for (int face : faces) {
+                            if (DiceHistogram.count(histogram, face) == 0) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    });
+                    break;
+                }
+                case "only": {
+                    int[] faces = faceCounts(arguments, line);
+                    predicate = predicate.and(histogram -> {
+                        int size = 0;
+                        for (int face : faces) {
+                            size += DiceHistogram.count(histogram, face);
+                        }
+                        return size == DiceHistogram.size(histogram);
+                    });
+                    break;
+                }
+                case "sum":
+                    predicate = predicate.and(comparison(DiceHistogram::sum, arguments, line));
+                    break;
+                case "dice":
+                    predicate = predicate.and(comparison(DiceHistogram::size, arguments, line));
+                    break;
+                default:
+                    throw error(line, "unknown dice pattern " + clause);
+            }
+        }
+        return predicate;
+    }
+
+    private static boolean isClauseArgument(String token) {
+        return token.equals("<=") || token.equals(">=") || token.equals("=") || token.matches("\\d+");
+    }
+
+    // Distinct faces with at least these many dice: the largest groups go to the largest counts
+    private static IntPredicate groups(int[] sizes) {
+        int[] needed = sizes.clone();
+        Arrays.sort(needed);
+        return histogram -> {
+            int[] counts = new int[DiceHistogram.FACES];
+            for (int face = 1; face <= DiceHistogram.FACES; face++) {
+                counts[face - 1] = DiceHistogram.count(histogram, face);
+            }
+            Arrays.sort(counts);
+            for (int i = 0; i < needed.length; i++) {
+                if (counts[counts.length - 1 - i] < needed[needed.length - 1 - i]) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static IntPredicate comparison(IntUnaryOperator measure, String[] arguments, int line) {
+        String operator = arguments.length == 1 ? "=" : arguments.length == 2 ? arguments[0] : "";
+        expect(!operator.isEmpty(), line, "expected: <=, >= or = and a number");
+        int value = number(arguments[arguments.length - 1], line);
+        switch (operator) {
+            case "<=":
+                return histogram -> measure.applyAsInt(histogram) <= value;
+            case ">=":
+                return histogram -> measure.applyAsInt(histogram) >= value;
+            case "=":
+                return histogram -> measure.applyAsInt(histogram) == value;
+            default:
+                throw error(line, "unknown comparison " + operator);
+        }
+    }
+
+    // Numbers 1-6 (faces, or dice per group), at least one
+    private static int[] faceCounts(String[] arguments, int line) {
+        expect(arguments.length > 0 && arguments.length <= DiceHistogram.MAX_DICE, line,
+                "expected 1 to 6 numbers");
+        int[] values = new int[arguments.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = number(arguments[i], line);
+            expect(values[i] >= 1 && values[i] <= DiceHistogram.FACES, line, "expected 1 to 6, got " + values[i]);
+        }
+        return values;
+    }
+
+    private static int number(String token, int line) {
+        try {
+            return Integer.parseInt(token);
+        } catch (NumberFormatException e) {
+            throw error(line, "expected a number, got " + token);
+        }
+    }
+
+    private static void expect(boolean condition, int line, String message) {
+        if (!condition) {
+            throw error(line, message);
+        }
+    }
+
+    private static IllegalArgumentException error(int line, String message) {
+        return new IllegalArgumentException("line " + line + ": " + message);
+    }
+
+    // -------------------- Getters --------------------
+
+    /**
+     * The text this was compiled from, e.g. to store with a saved game.
+     */
+    public String getDefinition() {
+        return definition;
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public int getSquareCount() {
+        return squareTypes.length;
+    }
+
+    /**
+     * The combination name a square shows, e.g. "AAA/BB".
+     */
+    public String getSquareType(int square) {
+        return squareTypes[square];
+    }
+
+    /**
+     * Position in the definition of the combination a square shows.
+     */
+    public int getSquareCombination(int square) {
+        return squareCombinations[square];
+    }
+
+    public int getSquarePoints(int square) {
+        return squarePoints[square];
+    }
+
+    /**
+     * Returns a copy of the points per square.
+     */
+    public int[] getSquarePoints() {
+        return squarePoints.clone();
+    }
+
+    public int getCombinationCount() {
+        return combinationNames.length;
+    }
+
+    public String getCombinationName(int combination) {
+        return combinationNames[combination];
+    }
+
+    /**
+     * Bitmask of every combination (bit = position in the definition) the
+     * dice histogram fulfills.
+     */
+    public int getCombinationMask(int histogram) {
+        return combinationMasks[DiceHistogram.index(histogram)];
+    }
+
+    /**
+     * Bitboard (see Bitboard) of the squares the dice multiset with this
+     * DiceHistogram index may go on, taken or not. Shared: do not modify.
+     */
+    public long[] getSquareMask(int multisetIndex) {
+        return squareMasks[multisetIndex];
+    }
+
+    /**
+     * Whether the dice multiset with this DiceHistogram index may take a
+     * square holding another player's stone.
+     */
+    public boolean canCapture(int multisetIndex) {
+        return captures[multisetIndex];
+    }
+}
@@ -1,7 +1,22 @@
+package kivi;
+
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import javax.swing.*;
 
-public class BobbleheadPanel extends JPanel implements PlayerSettings.BobbleheadPanel {
+/**
+ * An animated player figure for the start screen.
+ * The animation is pre-rendered into a sprite sheet, one sprite per
+ * distinct head position over a bobble cycle, so painting a frame is a
+ * single drawImage. The sheet is rebuilt only when the color, CPU flag,
+ * magnitude, size or color-blind mode changes.
+ */
+public class BobbleheadPanel extends JPanel
+        implements PlayerSettings.BobbleheadPanel, DisplaySettings.ColorBlindnessFilter.Themed {
+    private static final int FRAMES = 64; // animation steps per bobble cycle
+    private static final Font LABEL_FONT = new Font("Arial", Font.BOLD, 12);
+
     private Color color;
     private int playerId;
     private boolean isCpu;
@@ -9,6 +24,13 @@ public class BobbleheadPanel extends JPanel implements PlayerSettings.Bobblehead
     private double bobbleSpeed = 0.1;
     private double bobbleMagnitude = 5;
 
+    // Sprite sheet: sprites side by side; frameSprites maps each frame to one
+    private BufferedImage sprites;
+    private int spriteWidth;
+    private int spriteHeight;
+    private int[] frameSprites;
+    private int shownFrame;
+
     public BobbleheadPanel(int playerId, Color color) {
         this.playerId = playerId;
         this.color = color;
@@ -16,8 +38,10 @@ public class BobbleheadPanel extends JPanel implements PlayerSettings.Bobblehead
     }
     
     public void setCpu(boolean isCpu) {
-        this.isCpu = isCpu;
-        repaint();
+        if (this.isCpu != isCpu) {
+            this.isCpu = isCpu;
+            invalidateSprites();
+        }
     }
     
     public Color getColor() {
@@ -26,15 +50,27 @@ public class BobbleheadPanel extends JPanel implements PlayerSettings.Bobblehead
     
     @Override
     public void setColor(Color color) {
-        this.color = color;
-        repaint();
+        if (!color.equals(this.color)) {
+            this.color = color;
+            invalidateSprites();
+        }
     }
     
-    public void updateAnimation() {
+    @Override
+    public void themeChanged() {
+        invalidateSprites();
+    }
+    
+    /**
+     * Advance the animation; returns true if the figure looks different
+     * now, i.e. only then does it need a repaint.
+     */
+    public boolean updateAnimation() {
         bobbleAngle += bobbleSpeed;
         if (bobbleAngle > 2 * Math.PI) {
             bobbleAngle -= 2 * Math.PI;
         }
+        return frameSprites == null || frameSprites[currentFrame()] != frameSprites[shownFrame];
     }
     
     public void setBobbleSpeed(double speed) {
@@ -43,21 +79,67 @@ public class BobbleheadPanel extends JPanel implements PlayerSettings.Bobblehead
     
     public void setBobbleMagnitude(double magnitude) {
         this.bobbleMagnitude = magnitude;
+        invalidateSprites();
+    }
+    
+    private void invalidateSprites() {
+        sprites = null;
+        repaint();
+    }
+    
+    private int currentFrame() {
+        return (int) Math.round(bobbleAngle / (2 * Math.PI) * FRAMES) % FRAMES;
     }
     
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2d = (Graphics2D) g;
-        
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
         int width = getWidth();
         int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (sprites == null || width != spriteWidth || height != spriteHeight) {
+            buildSprites(width, height);
+        }
+        shownFrame = currentFrame();
+        int x = frameSprites[shownFrame] * width;
+        g.drawImage(sprites, 0, 0, width, height, x, 0, x + width, height, null);
+    }
+    
+    // Render every distinct head position of a cycle once
+    private void buildSprites(int width, int height) {
+        spriteWidth = width;
+        spriteHeight = height;
+        frameSprites = new int[FRAMES];
+        ArrayList<Point> offsets = new ArrayList<>();
+        for (int frame = 0; frame < FRAMES; frame++) {
+            double angle = 2 * Math.PI * frame / FRAMES;
+            Point offset = new Point((int) (Math.sin(angle) * bobbleMagnitude),
+                    (int) (Math.cos(angle) * (bobbleMagnitude / 2)));
+            int sprite = offsets.indexOf(offset);
+            if (sprite < 0) {
+                sprite = offsets.size();
+                offsets.add(offset);
+            }
+            frameSprites[frame] = sprite;
+        }
         
-        double offsetX = Math.sin(bobbleAngle) * bobbleMagnitude;
-        double offsetY = Math.cos(bobbleAngle) * (bobbleMagnitude / 2);
-        
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        sprites = config != null
+                ? config.createCompatibleImage(width * offsets.size(), height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width * offsets.size(), height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = sprites.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int sprite = 0; sprite < offsets.size(); sprite++) {
+            Graphics2D frame = (Graphics2D) g2d.create(sprite * width, 0, width, height);
+            drawFigure(frame, width, height, offsets.get(sprite).x, offsets.get(sprite).y);
+            frame.dispose();
+        }
+        g2d.dispose();
+    }
+    
+    private void drawFigure(Graphics2D g2d, int width, int height, int offsetX, int offsetY) {
         int bodyWidth = width / 3;
         int bodyHeight = height / 3;
         int bodyX = (width - bodyWidth) / 2;
@@ -88,8 +170,8 @@ public class BobbleheadPanel extends JPanel implements PlayerSettings.Bobblehead
         g2d.fillRect(neckX, neckY, neckWidth, neckHeight);
         
         int headDiameter = width / 2 + 10;
-        int headX = (width - headDiameter) / 2 + (int)offsetX;
-        int headY = neckY - headDiameter + 5 + (int)offsetY;
+        int headX = (width - headDiameter) / 2 + offsetX;
+        int headY = neckY - headDiameter + 5 + offsetY;
         
         g2d.setColor(DisplaySettings.ColorBlindnessFilter.transformColor(color));
         g2d.fillOval(headX, headY, headDiameter, headDiameter);
@@ -125,7 +207,7 @@ public class BobbleheadPanel extends JPanel implements PlayerSettings.Bobblehead
         }
         
         g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 12));
+        g2d.setFont(LABEL_FONT);
         String playerText = "P" + (playerId + 1);
         FontMetrics fm = g2d.getFontMetrics();
         int textWidth = fm.stringWidth(playerText);
@@ -0,0 +1,57 @@
+package kivi;
+
+/**
+ * A CPU player's decision logic, independent of Swing.
+ * After every roll the strategy looks at the engine (board, dice and roll
+ * count) and returns a packed decision:
+ * - Reroll, keeping the dice in the keep mask, or
+ * - Stop, keep the dice in the keep mask and place on a square
+ *   (square -1 means no square fits and the stone is not placed)
+ * Decisions are packed into an int so search code never allocates.
+ */
+public interface CpuStrategy {
+    int REROLL_FLAG = 1 << 30;
+
+    // Difficulty names forDifficulty knows, easiest first
+    String[] DIFFICULTIES = { "Easy", "Hard", "Expert" };
+
+    /**
+     * Decide what to do with the current roll. Only called after at least
+     * one roll; a reroll decision is ignored once all 3 rolls are used.
+     */
+    int decide(GameEngine engine);
+
+    static int place(int keepMask, int square) {
+        return ((square + 1) << 6) | keepMask;
+    }
+
+    static int reroll(int keepMask) {
+        return REROLL_FLAG | keepMask;
+    }
+
+    static boolean isReroll(int decision) {
+        return (decision & REROLL_FLAG) != 0;
+    }
+
+    static int getKeepMask(int decision) {
+        return decision & 0x3F;
+    }
+
+    static int getSquare(int decision) {
+        return ((decision & ~REROLL_FLAG) >>> 6) - 1;
+    }
+
+    /**
+     * Strategy for a difficulty name from the start screen (one of
+     * DIFFICULTIES); anything else plays Easy.
+     */
+    static CpuStrategy forDifficulty(String difficulty) {
+        if ("Hard".equals(difficulty)) {
+            return new ExpectimaxCpuStrategy();
+        }
+        if ("Expert".equals(difficulty)) {
+            return new MctsCpuStrategy();
+        }
+        return new EasyCpuStrategy();
+    }
+}
@@ -0,0 +1,216 @@
+package kivi;
+
+/**
+ * Static helpers for a packed dice histogram: a single int holding how many
+ * dice show each face, 4 bits per face (face 1 in bits 0-3, ..., face 6 in
+ * bits 20-23). Lets rule checks and lookups work on dice without lists
+ * or boxing.
+ */
+public final class DiceHistogram {
+    public static final int FACES = 6;
+    public static final int MAX_DICE = 6;
+    public static final int EMPTY = 0;
+
+    /** Number of multisets of 0-6 dice with faces 1-6: C(12, 6). */
+    public static final int MULTISET_COUNT = 924;
+
+    // RANK_OFFSET[face][diceUsedBefore][count] adds up to the dense multiset index
+    private static final int[][][] RANK_OFFSET = new int[FACES][MAX_DICE + 1][MAX_DICE + 1];
+
+    // Every histogram, stored at its own dense index
+    private static final int[] BY_INDEX = new int[MULTISET_COUNT];
+
+    // All multisets of exactly n dice, with their probability when rolling n dice
+    private static final int[][] OUTCOMES = new int[MAX_DICE + 1][];
+    private static final double[][] OUTCOME_PROBABILITIES = new double[MAX_DICE + 1][];
+
+    // For each six-dice roll (by index), every distinct sub-multiset of it
+    private static final int[][] SUBSETS = new int[MULTISET_COUNT][];
+
+    static {
+        for (int face = 0; face < FACES; face++) {
+            int facesAfter = FACES - 1 - face;
+            for (int used = 0; used <= MAX_DICE; used++) {
+                int offset = 0;
+                for (int count = 0; used + count <= MAX_DICE; count++) {
+                    RANK_OFFSET[face][used][count] = offset;
+                    offset += binomial(MAX_DICE - used - count + facesAfter, facesAfter);
+                }
+            }
+        }
+        fill(0, 0, EMPTY);
+
+        int[] perSize = new int[MAX_DICE + 1];
+        for (int index = 0; index < MULTISET_COUNT; index++) {
+            perSize[size(BY_INDEX[index])]++;
+        }
+        for (int n = 0; n <= MAX_DICE; n++) {
+            OUTCOMES[n] = new int[perSize[n]];
+            OUTCOME_PROBABILITIES[n] = new double[perSize[n]];
+            perSize[n] = 0;
+        }
+        for (int index = 0; index < MULTISET_COUNT; index++) {
+            int histogram = BY_INDEX[index];
+            int n = size(histogram);
+            // Multinomial: n! / (c1! ... c6!) / 6^n
+            double probability = factorial(n) / Math.pow(FACES, n);
+            for (int face = 1; face <= FACES; face++) {
+                probability /= factorial(count(histogram, face));
+            }
+            OUTCOMES[n][perSize[n]] = histogram;
+            OUTCOME_PROBABILITIES[n][perSize[n]] = probability;
+            perSize[n]++;
+            if (n == MAX_DICE) {
+                SUBSETS[index] = subsetsOf(histogram);
+            }
+        }
+    }
+
+    // Enumerates histograms face by face, which visits them in index order
+    private static void fill(int face, int used, int histogram) {
+        if (face == FACES) {
+            BY_INDEX[index(histogram)] = histogram;
+            return;
+        }
+        for (int count = 0; used + count <= MAX_DICE; count++) {
+            fill(face + 1, used + count, histogram + (count << (face << 2)));
+        }
+    }
+
+    private DiceHistogram() {
+    }
+
+    /**
+     * Histogram with one more die showing the given face (1-6).
+     */
+    public static int add(int histogram, int face) {
+        return histogram + (1 << ((face - 1) << 2));
+    }
+
+    /**
+     * Histogram with one die of the given face (1-6) removed.
+     */
+    public static int remove(int histogram, int face) {
+        return histogram - (1 << ((face - 1) << 2));
+    }
+
+    public static int count(int histogram, int face) {
+        return (histogram >>> ((face - 1) << 2)) & 0xF;
+    }
+
+    /**
+     * Total number of dice in the histogram.
+     */
+    public static int size(int histogram) {
+        int size = 0;
+        for (int face = 1; face <= FACES; face++) {
+            size += count(histogram, face);
+        }
+        return size;
+    }
+
+    /**
+     * Sum of the face values of all dice in the histogram.
+     */
+    public static int sum(int histogram) {
+        int sum = 0;
+        for (int face = 1; face <= FACES; face++) {
+            sum += face * count(histogram, face);
+        }
+        return sum;
+    }
+
+    /**
+     * Histogram of the dice whose bit is set in keepMask (bit i = die i).
+     */
+    public static int of(int[] values, int keepMask) {
+        int histogram = EMPTY;
+        for (int i = 0; i < values.length; i++) {
+            if ((keepMask & (1 << i)) != 0) {
+                histogram = add(histogram, values[i]);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Dense index in [0, MULTISET_COUNT) of a histogram holding at most 6 dice.
+     */
+    public static int index(int histogram) {
+        int index = 0;
+        int used = 0;
+        for (int face = 0; face < FACES; face++) {
+            int count = (histogram >>> (face << 2)) & 0xF;
+            index += RANK_OFFSET[face][used][count];
+            used += count;
+        }
+        return index;
+    }
+
+    /**
+     * The histogram stored at a dense index; inverse of index(int).
+     */
+    public static int byIndex(int index) {
+        return BY_INDEX[index];
+    }
+
+    /**
+     * Every multiset of exactly n dice, i.e. every outcome of rolling n dice.
+     * The returned array is shared and must not be modified.
+     */
+    public static int[] outcomes(int n) {
+        return OUTCOMES[n];
+    }
+
+    /**
+     * Probability of each entry of outcomes(n) when rolling n dice.
+     * The returned array is shared and must not be modified.
+     */
+    public static double[] outcomeProbabilities(int n) {
+        return OUTCOME_PROBABILITIES[n];
+    }
+
+    /**
+     * Every distinct sub-multiset (including empty and itself) of a six-dice
+     * histogram, given by its index. At most 64 entries; shared, do not modify.
+     */
+    public static int[] subsets(int sixDiceIndex) {
+        return SUBSETS[sixDiceIndex];
+    }
+
+    private static int[] subsetsOf(int histogram) {
+        int total = 1;
+        for (int face = 1; face <= FACES; face++) {
+            total *= count(histogram, face) + 1;
+        }
+        int[] subsets = new int[total];
+        subsets[0] = EMPTY;
+        int filled = 1;
+        for (int face = 1; face <= FACES; face++) {
+            int count = count(histogram, face);
+            int existing = filled;
+            for (int c = 1; c <= count; c++) {
+                for (int i = 0; i < existing; i++) {
+                    subsets[filled++] = subsets[i] + (c << ((face - 1) << 2));
+                }
+            }
+        }
+        return subsets;
+    }
+
+    private static double factorial(int n) {
+        double result = 1;
+        for (int i = 2; i <= n; i++) {
+            result *= i;
+        }
+        return result;
+    }
+
+    private static int binomial(int n, int k) {
+        int result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+}
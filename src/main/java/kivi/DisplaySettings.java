@@ -0,0 +1,407 @@
+package kivi;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import javax.swing.*;
+import javax.swing.plaf.LayerUI;
+
+public class DisplaySettings extends JFrame implements ActionListener {
+    private JComboBox<String> modeBox;
+    private JCheckBox fullFrameBox;
+    private JButton applyButton, cancelButton;
+    private JPanel previewPanel;
+
+    public DisplaySettings() {
+        // Use Nimbus Look and Feel if available
+        try {
+            for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
+                if ("Nimbus".equals(info.getName())) {
+                    UIManager.setLookAndFeel(info.getClassName());
+                    break;
+                }
+            }
+        } catch (Exception ex) { }
+
+        setTitle("Display Settings");
+        setSize(400, 300);
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setLocationRelativeTo(null);
+        initUI();
+        setVisible(true);
+    }
+
+    private void initUI() {
+        JPanel mainPanel = new JPanel(new BorderLayout(20, 20));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        JLabel titleLabel = new JLabel("Display Settings", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("SansSerif", Font.BOLD, 24));
+        mainPanel.add(titleLabel, BorderLayout.NORTH);
+
+        // Center panel for mode selection and preview
+        JPanel centerPanel = new JPanel(new BorderLayout(10, 10));
+        JPanel selectionPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
+        JLabel modeLabel = new JLabel("Select Mode:");
+        modeLabel.setFont(new Font("SansSerif", Font.PLAIN, 16));
+        String[] modes = {"Mono Magic", "Vibrant Vibes", "Rainbow Surprise"};
+        modeBox = new JComboBox<>(modes);
+        modeBox.setFont(new Font("SansSerif", Font.PLAIN, 16));
+        modeBox.addActionListener(e -> updatePreview());
+        selectionPanel.add(modeLabel);
+        selectionPanel.add(modeBox);
+        fullFrameBox = new JCheckBox("Filter whole windows at once", ColorBlindnessFilter.isFullFrame());
+        selectionPanel.add(fullFrameBox);
+        centerPanel.add(selectionPanel, BorderLayout.NORTH);
+
+        previewPanel = new JPanel();
+        previewPanel.setPreferredSize(new Dimension(300, 150));
+        previewPanel.setBorder(BorderFactory.createTitledBorder("Preview"));
+        updatePreview();
+        centerPanel.add(previewPanel, BorderLayout.CENTER);
+
+        mainPanel.add(centerPanel, BorderLayout.CENTER);
+
+        // Button panel at the bottom
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
+        applyButton = new JButton("Apply");
+        applyButton.setFont(new Font("SansSerif", Font.BOLD, 16));
+        applyButton.addActionListener(this);
+        cancelButton = new JButton("Cancel");
+        cancelButton.setFont(new Font("SansSerif", Font.BOLD, 16));
+        cancelButton.addActionListener(this);
+        buttonPanel.add(applyButton);
+        buttonPanel.add(cancelButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        add(mainPanel);
+    }
+
+    private void updatePreview() {
+        String selectedMode = (String) modeBox.getSelectedItem();
+        previewPanel.removeAll();
+        previewPanel.setLayout(new GridBagLayout());
+        JLabel previewLabel = new JLabel();
+        previewLabel.setFont(new Font("SansSerif", Font.BOLD, 18));
+
+        if ("Mono Magic".equals(selectedMode)) {
+            Color sample = new Color(30, 144, 255);
+            Color transformed = ColorBlindnessFilter.applyMonochromacy(sample);
+            previewPanel.setBackground(transformed);
+            previewLabel.setText("Mono Magic Preview");
+        } else if ("Vibrant Vibes".equals(selectedMode)) {
+            Color sample = new Color(220, 20, 60);
+            Color transformed = ColorBlindnessFilter.applyDichromacy(sample);
+            previewPanel.setBackground(transformed);
+            previewLabel.setText("Vibrant Vibes Preview");
+        } else if ("Rainbow Surprise".equals(selectedMode)) {
+            Color sample = new Color(50, 205, 50);
+            Color transformed = ColorBlindnessFilter.applyAnomalousTrichromacy(sample);
+            previewPanel.setBackground(transformed);
+            previewLabel.setText("Rainbow Surprise Preview");
+        }
+        previewLabel.setForeground(Color.BLACK);
+        previewPanel.add(previewLabel, new GridBagConstraints());
+        previewPanel.revalidate();
+        previewPanel.repaint();
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (e.getSource() == applyButton) {
+            String selectedMode = (String) modeBox.getSelectedItem();
+            ColorBlindnessFilter.setFullFrame(fullFrameBox.isSelected());
+            if ("Mono Magic".equals(selectedMode)) {
+                ColorBlindnessFilter.setMode(ColorBlindnessFilter.Mode.MONOCHROMACY);
+            } else if ("Vibrant Vibes".equals(selectedMode)) {
+                ColorBlindnessFilter.setMode(ColorBlindnessFilter.Mode.DICHROMACY);
+            } else if ("Rainbow Surprise".equals(selectedMode)) {
+                ColorBlindnessFilter.setMode(ColorBlindnessFilter.Mode.ANOMALOUS_TRICHROMACY);
+            }
+            JOptionPane.showMessageDialog(this, "Display settings applied: " + selectedMode,
+                "Settings Applied", JOptionPane.INFORMATION_MESSAGE);
+            dispose();
+        } else if (e.getSource() == cancelButton) {
+            dispose();
+        }
+    }
+
+    /**
+     * Simulates color blindness, in one of two ways:
+     * - Per color: widgets pass their colors through transformColor. Each
+     *   mode caches the colors it has transformed, so a hit does no math
+     *   and allocates nothing
+     * - Full frame: windows whose content is wrapped with filtered() are
+     *   painted unfiltered into an image, which is then filtered in one
+     *   pass (transformColor returns colors unchanged in this mode)
+     * Changing the mode re-themes every open window: Themed components
+     * rebuild what they cached and everything is repainted.
+     */
+    public static class ColorBlindnessFilter {
+        public enum Mode {
+            NORMAL,
+            MONOCHROMACY,
+            DICHROMACY,
+            ANOMALOUS_TRICHROMACY
+        }
+
+        /**
+         * A component that caches filtered colors (e.g. in images) and
+         * must rebuild them when the mode changes.
+         */
+        public interface Themed {
+            void themeChanged();
+        }
+
+        private static final int CACHE_SIZE = 1024; // per mode, direct-mapped
+        private static final CachedColor[][] colorCache = new CachedColor[Mode.values().length][CACHE_SIZE];
+        private static final FrameFilter FRAME_FILTER = new FrameFilter();
+        private static volatile Mode currentMode = Mode.NORMAL;
+        private static volatile boolean fullFrame;
+
+        // Immutable, so entries can be shared between threads without locks
+        private static class CachedColor {
+            final int rgb;
+            final Color color;
+
+            CachedColor(int rgb, Color color) {
+                this.rgb = rgb;
+                this.color = color;
+            }
+        }
+
+        public static void setMode(Mode mode) {
+            currentMode = mode;
+            applyTheme();
+        }
+        public static Mode getMode() {
+            return currentMode;
+        }
+        /**
+         * Filter whole windows instead of single colors.
+         */
+        public static void setFullFrame(boolean enabled) {
+            fullFrame = enabled;
+            applyTheme();
+        }
+        public static boolean isFullFrame() {
+            return fullFrame;
+        }
+        // Mono Magic: Convert to grayscale
+        public static Color applyMonochromacy(Color color) {
+            int gray = (int)(color.getRed() * 0.299 + color.getGreen() * 0.587 + color.getBlue() * 0.114);
+            return new Color(gray, gray, gray);
+        }
+        // Vibrant Vibes: Simple dichromacy simulation
+        public static Color applyDichromacy(Color color) {
+            int r = color.getRed();
+            int g = color.getGreen();
+            int b = color.getBlue();
+            int r2 = clamp((int)(0.625 * r + 0.375 * g));
+            int g2 = clamp((int)(0.7 * r + 0.3 * g));
+            int b2 = b;
+            return new Color(r2, g2, b2);
+        }
+        // Rainbow Surprise: Blend normal with dichromacy simulation
+        public static Color applyAnomalousTrichromacy(Color color) {
+            Color dichro = applyDichromacy(color);
+            int r = (int)(0.5 * color.getRed() + 0.5 * dichro.getRed());
+            int g = (int)(0.5 * color.getGreen() + 0.5 * dichro.getGreen());
+            int b = (int)(0.5 * color.getBlue() + 0.5 * dichro.getBlue());
+            return new Color(clamp(r), clamp(g), clamp(b));
+        }
+        public static Color transformColor(Color color) {
+            Mode mode = currentMode;
+            if (mode == Mode.NORMAL || fullFrame) {
+                return color;
+            }
+            return transform(mode, color.getRGB());
+        }
+        private static Color transform(Mode mode, int rgb) {
+            CachedColor[] cache = colorCache[mode.ordinal()];
+            int slot = (rgb ^ (rgb >>> 12)) & (CACHE_SIZE - 1);
+            CachedColor cached = cache[slot];
+            if (cached == null || cached.rgb != rgb) {
+                cached = new CachedColor(rgb, transformUncached(mode, new Color(rgb, true)));
+                cache[slot] = cached;
+            }
+            return cached.color;
+        }
+        private static Color transformUncached(Mode mode, Color color) {
+            switch(mode) {
+                case MONOCHROMACY:
+                    return applyMonochromacy(color);
+                case DICHROMACY:
+                    return applyDichromacy(color);
+                case ANOMALOUS_TRICHROMACY:
+                    return applyAnomalousTrichromacy(color);
+                default:
+                    return color;
+            }
+        }
+        private static int clamp(int value) {
+            return Math.max(0, Math.min(255, value));
+        }
+
+        /**
+         * Wrap a window's content so it can be filtered as a whole
+         * (only does anything in full-frame mode).
+         */
+        public static JComponent filtered(JComponent view) {
+            return new JLayer<>(view, new FrameFilterUI());
+        }
+
+        /**
+         * The full-frame filter for the current mode, usable on any image.
+         */
+        public static BufferedImageOp getFrameFilter() {
+            return FRAME_FILTER;
+        }
+
+        // Rebuild cached colors and repaint every open window (Swing thread)
+        private static void applyTheme() {
+            if (!SwingUtilities.isEventDispatchThread()) {
+                SwingUtilities.invokeLater(ColorBlindnessFilter::applyTheme);
+                return;
+            }
+            for (Window window : Window.getWindows()) {
+                retheme(window);
+                window.repaint();
+            }
+        }
+        private static void retheme(Component component) {
+            if (component instanceof Themed) {
+                ((Themed) component).themeChanged();
+            }
+            if (component instanceof Container) {
+                for (Component child : ((Container) component).getComponents()) {
+                    retheme(child);
+                }
+            }
+        }
+
+        /**
+         * Paints the wrapped view into an image and filters the dirty
+         * region of it in one pass.
+         */
+        private static class FrameFilterUI extends LayerUI<JComponent> {
+            private BufferedImage frame;
+
+            @Override
+            public void paint(Graphics g, JComponent c) {
+                if (!fullFrame || currentMode == Mode.NORMAL || c.getWidth() <= 0 || c.getHeight() <= 0) {
+                    super.paint(g, c);
+                    return;
+                }
+                if (frame == null || frame.getWidth() != c.getWidth() || frame.getHeight() != c.getHeight()) {
+                    frame = new BufferedImage(c.getWidth(), c.getHeight(), BufferedImage.TYPE_INT_RGB);
+                }
+                Rectangle clip = g.getClipBounds();
+                if (clip == null) {
+                    clip = new Rectangle(0, 0, c.getWidth(), c.getHeight());
+                }
+                clip = clip.intersection(new Rectangle(0, 0, c.getWidth(), c.getHeight()));
+                if (clip.isEmpty()) {
+                    return;
+                }
+                Graphics2D offscreen = frame.createGraphics();
+                offscreen.setClip(clip);
+                super.paint(offscreen, c);
+                offscreen.dispose();
+                FRAME_FILTER.filterRegion(frame, clip.x, clip.y, clip.width, clip.height);
+                g.drawImage(frame, 0, 0, null);
+            }
+        }
+
+        /**
+         * Whole-image version of transformColor. The modes mix the color
+         * channels, so this maps whole pixels through the per-mode color
+         * cache rather than per channel like a LookupOp; a frame only has a
+         * handful of distinct colors, so nearly every pixel is a cache hit.
+         */
+        private static class FrameFilter implements BufferedImageOp {
+            @Override
+            public BufferedImage filter(BufferedImage src, BufferedImage dst) {
+                if (dst == null) {
+                    dst = createCompatibleDestImage(src, null);
+                }
+                if (dst != src) {
+                    Graphics2D g = dst.createGraphics();
+                    g.drawImage(src, 0, 0, null);
+                    g.dispose();
+                }
+                filterRegion(dst, 0, 0, dst.getWidth(), dst.getHeight());
+                return dst;
+            }
+
+            // Filter a rectangle of 'image' in place
+            void filterRegion(BufferedImage image, int x, int y, int width, int height) {
+                Mode mode = currentMode;
+                if (mode == Mode.NORMAL) {
+                    return;
+                }
+                int type = image.getType();
+                if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+                    int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                    int stride = image.getWidth();
+                    int lastIn = 0; // never a real input, which is always opaque
+                    int lastOut = 0;
+                    for (int row = y; row < y + height; row++) {
+                        for (int i = row * stride + x, end = i + width; i < end; i++) {
+                            // Runs of the same color skip the cache lookup
+                            int in = pixels[i] | 0xFF000000;
+                            if (in != lastIn) {
+                                lastIn = in;
+                                lastOut = transform(mode, in).getRGB();
+                            }
+                            pixels[i] = (pixels[i] & 0xFF000000) | (lastOut & 0xFFFFFF);
+                        }
+                    }
+                    return;
+                }
+                for (int row = y; row < y + height; row++) {
+                    for (int col = x; col < x + width; col++) {
+                        int argb = image.getRGB(col, row);
+                        int rgb = transform(mode, argb | 0xFF000000).getRGB();
+                        image.setRGB(col, row, (argb & 0xFF000000) | (rgb & 0xFFFFFF));
+                    }
+                }
+            }
+
+            @Override
+            public Rectangle2D getBounds2D(BufferedImage src) {
+                return src.getRaster().getBounds();
+            }
+
+            @Override
+            public BufferedImage createCompatibleDestImage(BufferedImage src, ColorModel destCM) {
+                ColorModel model = destCM != null ? destCM : src.getColorModel();
+                return new BufferedImage(model, model.createCompatibleWritableRaster(src.getWidth(), src.getHeight()),
+                        model.isAlphaPremultiplied(), null);
+            }
+
+            @Override
+            public Point2D getPoint2D(Point2D srcPt, Point2D dstPt) {
+                if (dstPt == null) {
+                    dstPt = new Point2D.Float();
+                }
+                dstPt.setLocation(srcPt);
+                return dstPt;
+            }
+
+            @Override
+            public RenderingHints getRenderingHints() {
+                return null;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> new DisplaySettings());
+    }
+}
@@ -0,0 +1,29 @@
+package kivi;
+
+/**
+ * The original "Easy" CPU: never rerolls, keeps the smallest dice subset
+ * that fits any free square and places on the first such square in
+ * row-major order.
+ */
+public class EasyCpuStrategy implements CpuStrategy {
+    private final MoveGenerator moves = new MoveGenerator();
+
+    @Override
+    public int decide(GameEngine engine) {
+        int best = CpuStrategy.place(0, -1);
+        int bestDice = Integer.MAX_VALUE;
+        int bestSquare = -1;
+        int count = moves.generate(engine);
+        for (int i = 0; i < count; i++) {
+            int move = moves.getMove(i);
+            int keptDice = Integer.bitCount(CpuStrategy.getKeepMask(move));
+            int square = CpuStrategy.getSquare(move);
+            if (keptDice < bestDice || (keptDice == bestDice && square < bestSquare)) {
+                best = move;
+                bestDice = keptDice;
+                bestSquare = square;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,147 @@
+package kivi;
+
+/**
+ * The "Hard" CPU: an exact expectimax over the keep/reroll tree of a turn.
+ * - Decision nodes: after a roll, either place now (best dice subset and
+ *   square) or keep a subset of the dice and reroll the rest
+ * - Chance nodes: rolling the remaining dice, memoized by the kept-dice
+ *   histogram (DiceHistogram index), so each of the 924 multisets is
+ *   evaluated once per level
+ * With at most 3 rolls the whole tree is about 12k chance outcomes per
+ * level, which keeps a full decision within a few milliseconds.
+ * Instances keep their tables between calls and are not thread-safe.
+ */
+public class ExpectimaxCpuStrategy implements CpuStrategy {
+    // Per-decision tables, all indexed by DiceHistogram index
+    private final int[] placePoints = new int[DiceHistogram.MULTISET_COUNT];
+    private final int[] placeSquare = new int[DiceHistogram.MULTISET_COUNT];
+    private final int[] bestSubset = new int[DiceHistogram.MULTISET_COUNT];
+    private final double[][] rollValue = new double[RollADice.MAX_ROLLS][DiceHistogram.MULTISET_COUNT];
+    private final double[][] keepValue = new double[RollADice.MAX_ROLLS][DiceHistogram.MULTISET_COUNT];
+    private int[] squareValues = new int[0];
+    private long[] validSquares = new long[0];
+
+    @Override
+    public int decide(GameEngine engine) {
+        RollADice diceLogic = engine.getDiceLogic();
+        int rerollsLeft = RollADice.MAX_ROLLS - diceLogic.getRollCount();
+        evaluate(engine, rerollsLeft);
+
+        int[] values = diceLogic.getDiceValues();
+        int roll = DiceHistogram.index(diceLogic.getRollHistogram());
+
+        // Best keep set to reroll with, if any rerolls are left
+        if (rerollsLeft > 0) {
+            double bestKeepValue = -1;
+            int bestKeep = DiceHistogram.EMPTY;
+            for (int kept : DiceHistogram.subsets(roll)) {
+                if (DiceHistogram.size(kept) == DiceHistogram.MAX_DICE) {
+                    continue;
+                }
+                double value = keepValue[rerollsLeft - 1][DiceHistogram.index(kept)];
+                if (value > bestKeepValue) {
+                    bestKeepValue = value;
+                    bestKeep = kept;
+                }
+            }
+            if (bestKeepValue > rollValue[0][roll]) {
+                return CpuStrategy.reroll(MoveGenerator.keepMaskFor(values, bestKeep));
+            }
+        }
+
+        int subset = bestSubset[roll];
+        return CpuStrategy.place(MoveGenerator.keepMaskFor(values, subset), placeSquare[DiceHistogram.index(subset)]);
+    }
+
+    /**
+     * Value of placing a stone on a square: how much it raises the
+     * player's run-based score.
+     */
+    protected int getSquareValue(GameEngine engine, int square) {
+        return engine.getScoreDelta(square);
+    }
+
+    /**
+     * Expected points of keeping the dice in 'keptHistogram' and rolling the
+     * rest, then playing on optimally, when 'rerollsLeft' rerolls (this one
+     * included) are left. Valid after evaluate for at least that many.
+     */
+    public double getKeepValue(int rerollsLeft, int keptHistogram) {
+        return keepValue[rerollsLeft - 1][DiceHistogram.index(keptHistogram)];
+    }
+
+    /**
+     * Fill the tables bottom-up for the current board, up to 'rerollsLeft'.
+     */
+    public void evaluate(GameEngine engine, int rerollsLeft) {
+        int squareCount = engine.getState().getSquareCount();
+        if (squareValues.length != squareCount) {
+            squareValues = new int[squareCount];
+            validSquares = Bitboard.create(squareCount);
+        }
+        for (int square = 0; square < squareCount; square++) {
+            squareValues[square] = getSquareValue(engine, square);
+        }
+
+        // Placing with exactly these dice: best free square they fit
+        for (int index = 0; index < DiceHistogram.MULTISET_COUNT; index++) {
+            engine.getValidSquares(DiceHistogram.byIndex(index), validSquares);
+            int bestPoints = 0;
+            int bestSquare = -1;
+            for (int square = Bitboard.next(validSquares, 0); square >= 0;
+                    square = Bitboard.next(validSquares, square + 1)) {
+                if (bestSquare < 0 || squareValues[square] > bestPoints) {
+                    bestPoints = squareValues[square];
+                    bestSquare = square;
+                }
+            }
+            placePoints[index] = bestPoints;
+            placeSquare[index] = bestSquare;
+        }
+
+        // Placing after a six-dice roll: best sub-multiset to keep
+        for (int roll : DiceHistogram.outcomes(DiceHistogram.MAX_DICE)) {
+            int rollIndex = DiceHistogram.index(roll);
+            int best = DiceHistogram.EMPTY;
+            for (int subset : DiceHistogram.subsets(rollIndex)) {
+                if (placePoints[DiceHistogram.index(subset)] > placePoints[DiceHistogram.index(best)]) {
+                    best = subset;
+                }
+            }
+            bestSubset[rollIndex] = best;
+            rollValue[0][rollIndex] = placePoints[DiceHistogram.index(best)];
+        }
+
+        for (int level = 0; level < rerollsLeft; level++) {
+            // Chance nodes: keep these dice, roll the rest, then play on with 'level' rerolls
+            for (int kept = 0; kept < DiceHistogram.MULTISET_COUNT; kept++) {
+                int keptHistogram = DiceHistogram.byIndex(kept);
+                int rolled = DiceHistogram.MAX_DICE - DiceHistogram.size(keptHistogram);
+                if (rolled == 0) {
+                    continue;
+                }
+                int[] outcomes = DiceHistogram.outcomes(rolled);
+                double[] probabilities = DiceHistogram.outcomeProbabilities(rolled);
+                double expected = 0;
+                for (int i = 0; i < outcomes.length; i++) {
+                    expected += probabilities[i] * rollValue[level][DiceHistogram.index(keptHistogram + outcomes[i])];
+                }
+                keepValue[level][kept] = expected;
+            }
+            if (level + 1 == rerollsLeft) {
+                break;
+            }
+            // Decision nodes one level up: place now or the best keep-and-reroll
+            for (int roll : DiceHistogram.outcomes(DiceHistogram.MAX_DICE)) {
+                int rollIndex = DiceHistogram.index(roll);
+                double best = rollValue[0][rollIndex];
+                for (int kept : DiceHistogram.subsets(rollIndex)) {
+                    if (DiceHistogram.size(kept) < DiceHistogram.MAX_DICE) {
+                        best = Math.max(best, keepValue[level][DiceHistogram.index(kept)]);
+                    }
+                }
+                rollValue[level + 1][rollIndex] = best;
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package kivi;
+
+import java.util.Arrays;
+
+/**
+ * Turn clock of one game, based on System.nanoTime (callers pass 'now', so
+ * it is easy to drive in tests and replays):
+ * - Each turn gets a fixed allowance plus whatever is in the player's
+ *   time bank; time used beyond the allowance comes out of the bank, and
+ *   the increment is added to the bank after every turn
+ * - Paused intervals are tracked exactly and never count against a player
+ * - expire() reports the timeout of a turn exactly once
+ * With an empty bank and no increment this is a plain per-turn timer.
+ * Not thread-safe; the game loop owns it.
+ */
+public class GameClock {
+    private final long turnNanos;
+    private final long incrementNanos;
+    private final long[] bankNanos;
+
+    private int player = -1;
+    private long turnStart; // 'now' when the turn started, moved forward by pauses
+    private long allowance; // the turn's own time (not the bank)
+    private boolean paused;
+    private long pausedAt;
+    private boolean expired;
+
+    public GameClock(int playerCount, long turnNanos, long initialBankNanos, long incrementNanos) {
+        this.turnNanos = turnNanos;
+        this.incrementNanos = incrementNanos;
+        bankNanos = new long[playerCount];
+        Arrays.fill(bankNanos, initialBankNanos);
+    }
+
+    /**
+     * Start 'player's turn with the full allowance.
+     */
+    public void startTurn(int player, long now) {
+        startTurn(player, turnNanos, now);
+    }
+
+    /**
+     * Start 'player's turn with 'allowanceNanos' of turn time left (negative
+     * if part of the bank is already used), e.g. when a saved game
+     * continues mid-turn.
+     */
+    public void startTurn(int player, long allowanceNanos, long now) {
+        this.player = player;
+        turnStart = now;
+        allowance = allowanceNanos;
+        paused = false;
+        expired = false;
+    }
+
+    /**
+     * Finish the turn: time beyond the allowance comes out of the bank,
+     * then the increment goes in.
+     */
+    public void endTurn(long now) {
+        if (player < 0) {
+            return;
+        }
+        long overtime = getElapsedNanos(now) - allowance;
+        if (overtime > 0) {
+            bankNanos[player] = Math.max(0, bankNanos[player] - overtime);
+        }
+        bankNanos[player] += incrementNanos;
+        player = -1;
+    }
+
+    public void pause(long now) {
+        if (!paused) {
+            paused = true;
+            pausedAt = now;
+        }
+    }
+
+    public void resume(long now) {
+        if (paused) {
+            paused = false;
+            turnStart += now - pausedAt;
+        }
+    }
+
+    /**
+     * True the first time it is called once the turn's time (allowance and
+     * bank) is used up, false before and every time after.
+     */
+    public boolean expire(long now) {
+        if (expired || player < 0 || paused || getRemainingNanos(now) > 0) {
+            return false;
+        }
+        expired = true;
+        return true;
+    }
+
+    // -------------------- Getters --------------------
+
+    /**
+     * Turn time used so far, not counting pauses.
+     */
+    public long getElapsedNanos(long now) {
+        return (paused ? pausedAt : now) - turnStart;
+    }
+
+    /**
+     * Time left in the turn, bank included.
+     */
+    public long getRemainingNanos(long now) {
+        if (player < 0) {
+            return 0;
+        }
+        return Math.max(0, allowance + bankNanos[player] - getElapsedNanos(now));
+    }
+
+    /**
+     * The System.nanoTime at which the turn runs out if nobody pauses.
+     */
+    public long getDeadline(long now) {
+        return now + getRemainingNanos(now);
+    }
+
+    public long getBankNanos(int player) {
+        return bankNanos[player];
+    }
+
+    /**
+     * The turn's own time left, bank not included: negative once the
+     * player is into their bank.
+     */
+    public long getAllowanceNanos(long now) {
+        if (player < 0) {
+            return 0;
+        }
+        return allowance - getElapsedNanos(now);
+    }
+
+    /**
+     * Restore a player's bank, e.g. from a saved game.
+     */
+    public void setBankNanos(int player, long bankNanos) {
+        this.bankNanos[player] = bankNanos;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+}
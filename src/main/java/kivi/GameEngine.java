@@ -0,0 +1,354 @@
+package kivi;
+
+/**
+ * Headless Kivi rules on top of a GameState:
+ * - Rolling and keeping dice through RollADice
+ * - Checking and placing the (tentative) stone for the current turn
+ * - Committing the stone and passing the turn
+ * KiviGameplay and PlaceAPiece only render what this class decides,
+ * so full games can also be played without any Swing components.
+ * Every change is published as a GameEvent when an event bus is set.
+ */
+public class GameEngine {
+    private final GameState state;
+    private final RollADice diceLogic;
+    private final BoardRules rules;
+    private final RunScorer scorer;
+
+    // Square holding this turn's stone before the turn is ended, or -1
+    private int pendingSquare = -1;
+
+    // Records every action when set, see GameReplay
+    private GameReplay replay;
+
+    // Told about every change when set
+    private GameEventBus events;
+
+    public GameEngine(int playerCount) {
+        this(BoardRules.standard(), playerCount, new RollADice());
+    }
+
+    public GameEngine(BoardRules rules, int playerCount, RollADice diceLogic) {
+        this.state = new GameState(rules.getBoardSize(), playerCount);
+        this.diceLogic = diceLogic;
+        this.rules = rules;
+        this.scorer = new RunScorer(rules.getBoardSize(), rules.getSquarePoints());
+    }
+
+    /**
+     * A new engine on the same board with a copy of this game's state,
+     * rolling its own dice. Used to play out simulations off the real game.
+     */
+    public GameEngine newSimulation(RollADice simulationDice) {
+        return new GameEngine(this, state.copy(), simulationDice);
+    }
+
+    /**
+     * A copy of the game as it stands, the current roll included, e.g. for
+     * thinking about it on another thread while this game goes on.
+     */
+    public GameEngine snapshot() {
+        GameEngine snapshot = newSimulation(new RollADice(0));
+        snapshot.diceLogic.restore(diceLogic.getDiceValues(), diceLogic.getKeepMask(), diceLogic.getRollCount());
+        return snapshot;
+    }
+
+    /**
+     * A new game on the same board, sharing its tables, e.g. one of many
+     * games hosted by a server.
+     */
+    public GameEngine newGame(int playerCount, RollADice gameDice) {
+        return new GameEngine(this, new GameState(getBoardSize(), playerCount), gameDice);
+    }
+
+    // Shares the (immutable) board tables of 'board'
+    private GameEngine(GameEngine board, GameState state, RollADice diceLogic) {
+        this.state = state;
+        this.diceLogic = diceLogic;
+        this.rules = board.rules;
+        this.scorer = board.scorer;
+    }
+
+    /**
+     * Reset the dice and the tentative stone for the current player's turn.
+     */
+    public void startTurn() {
+        diceLogic.resetForNextTurn();
+        pendingSquare = -1;
+        if (events != null) {
+            events.publish(new GameEvent.TurnStarted(getCurrentPlayer()));
+        }
+    }
+
+    /**
+     * Roll the dice. Any tentatively placed stone is taken back,
+     * since it may no longer match the new roll.
+     */
+    public void rollDice() {
+        pendingSquare = -1;
+        int rollsBefore = diceLogic.getRollCount();
+        diceLogic.rollDice();
+        if (replay != null) {
+            replay.logRoll();
+        }
+        if (events != null && diceLogic.getRollCount() > rollsBefore) {
+            publishDice(true, -1);
+        }
+    }
+
+    /**
+     * Roll with known results (see RollADice.applyRoll), e.g. when replaying.
+     */
+    public void applyRoll(int[] values) {
+        pendingSquare = -1;
+        int rollsBefore = diceLogic.getRollCount();
+        diceLogic.applyRoll(values);
+        if (events != null && diceLogic.getRollCount() > rollsBefore) {
+            publishDice(true, -1);
+        }
+    }
+
+    public void toggleDieSelection(int dieIndex) {
+        diceLogic.toggleDieSelection(dieIndex);
+        if (replay != null) {
+            replay.logToggle(dieIndex);
+        }
+        if (events != null && diceLogic.getRollCount() > 0) {
+            publishDice(false, dieIndex);
+        }
+    }
+
+    /**
+     * Select exactly the dice in the keep mask (bit i = die i), e.g. for a CPU.
+     */
+    public void setKeepMask(int keepMask) {
+        diceLogic.setKeepMask(keepMask);
+        if (replay != null) {
+            replay.logKeep(keepMask);
+        }
+        if (events != null) {
+            publishDice(false, -1);
+        }
+    }
+
+    // DiceRolled, or DieToggled for 'die' (-1: the whole keep mask)
+    private void publishDice(boolean rolled, int die) {
+        int player = getCurrentPlayer();
+        int[] values = diceLogic.getDiceValues();
+        int keepMask = diceLogic.getKeepMask();
+        int rollCount = diceLogic.getRollCount();
+        long[] validSquares = getValidSquares();
+        events.publish(rolled
+                ? new GameEvent.DiceRolled(player, values, keepMask, rollCount, validSquares)
+                : new GameEvent.DieToggled(player, die, values, keepMask, rollCount, validSquares));
+    }
+
+    /**
+     * A square is free if no committed stone is on it.
+     * The current turn's tentative stone does not block its own square.
+     */
+    public boolean isFree(int square) {
+        return !state.isOccupied(square);
+    }
+
+    /**
+     * Whether the currently selected dice allow a stone on this square.
+     */
+    public boolean canPlace(int square) {
+        return diceLogic.getRollCount() > 0 && canPlace(diceLogic.getKeptHistogram(), square);
+    }
+
+    /**
+     * Whether the given dice histogram allows a stone on this square.
+     */
+    public boolean canPlace(int histogram, int square) {
+        int index = DiceHistogram.index(histogram);
+        if (!Bitboard.get(rules.getSquareMask(index), square)) {
+            return false;
+        }
+        int owner = state.getOwner(square);
+        return owner == GameState.EMPTY || (rules.canCapture(index) && owner != state.getCurrentPlayer());
+    }
+
+    /**
+     * Fill 'squares' (a Bitboard of getState().getWordCount() words) with
+     * every square the given dice histogram may go on: free squares, plus
+     * other players' squares if the dice may capture. Returns whether
+     * there is any.
+     */
+    public boolean getValidSquares(int histogram, long[] squares) {
+        int index = DiceHistogram.index(histogram);
+        long[] fits = rules.getSquareMask(index);
+        boolean capture = rules.canCapture(index);
+        int player = state.getCurrentPlayer();
+        long any = 0L;
+        for (int word = 0; word < squares.length; word++) {
+            long taken = capture ? state.getPlayerWord(player, word) : state.getOccupiedWord(word);
+            squares[word] = fits[word] & ~taken;
+            any |= squares[word];
+        }
+        return any != 0;
+    }
+
+    /**
+     * A new Bitboard of every square the currently selected dice may go on.
+     */
+    public long[] getValidSquares() {
+        long[] squares = Bitboard.create(state.getSquareCount());
+        if (diceLogic.getRollCount() > 0) {
+            getValidSquares(diceLogic.getKeptHistogram(), squares);
+        }
+        return squares;
+    }
+
+    /**
+     * Move this turn's stone to the given square if the selected dice allow it.
+     */
+    public boolean placeStone(int square) {
+        if (!canPlace(square)) {
+            return false;
+        }
+        pendingSquare = square;
+        if (replay != null) {
+            replay.logPlace(square);
+        }
+        if (events != null) {
+            events.publish(new GameEvent.StonePlaced(getCurrentPlayer(), square));
+        }
+        return true;
+    }
+
+    /**
+     * How much the current player's (run-based) score would change
+     * with a stone on this square.
+     */
+    public int getScoreDelta(int square) {
+        return scorer.scoreDelta(state, state.getCurrentPlayer(), square);
+    }
+
+    /**
+     * Put the current player's stone on a square the rules allow (see
+     * getValidSquares) for good, without passing the turn. A stone
+     * already there is captured: its owner loses the points it scored.
+     * Returns the points the new stone scores.
+     */
+    public int commitStone(int square) {
+        int player = state.getCurrentPlayer();
+        int points = getScoreDelta(square);
+        int victim = state.getOwner(square);
+        if (victim == GameState.EMPTY) {
+            state.placeStone(square, player, points);
+        } else {
+            state.captureStone(square, player, points, scorer.removalDelta(state, victim, square));
+        }
+        return points;
+    }
+
+    /**
+     * Commit the tentative stone (if any), pass the turn on and
+     * return the points scored by the stone.
+     */
+    public int endTurn() {
+        int player = state.getCurrentPlayer();
+        int square = pendingSquare;
+        int points = 0;
+        if (square >= 0) {
+            points = commitStone(square);
+            pendingSquare = -1;
+        }
+        state.advancePlayer();
+        if (replay != null) {
+            replay.logEndTurn(points);
+        }
+        if (events != null) {
+            int[] stonesLeft = new int[state.getPlayerCount()];
+            for (int i = 0; i < stonesLeft.length; i++) {
+                stonesLeft[i] = state.getStonesLeft(i);
+            }
+            events.publish(new GameEvent.TurnEnded(player, square, points, stonesLeft, state.getScores()));
+            if (state.isGameOver()) {
+                events.publish(new GameEvent.GameOver(player, state.getScores()));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Play the current player's whole turn headless: roll, let the strategy
+     * keep dice and reroll up to the roll limit, place its chosen stone and
+     * end the turn. Returns the points scored.
+     */
+    public int playCpuTurn(CpuStrategy strategy) {
+        startTurn();
+        rollDice();
+        while (true) {
+            int decision = strategy.decide(this);
+            setKeepMask(CpuStrategy.getKeepMask(decision));
+            if (CpuStrategy.isReroll(decision) && diceLogic.getRollCount() < RollADice.MAX_ROLLS) {
+                rollDice();
+                continue;
+            }
+            int square = CpuStrategy.getSquare(decision);
+            if (square >= 0) {
+                placeStone(square);
+            }
+            return endTurn();
+        }
+    }
+
+    public boolean isGameOver() {
+        return state.isGameOver();
+    }
+
+    /**
+     * Record this game's actions from now on (null to stop).
+     */
+    public void setReplay(GameReplay replay) {
+        this.replay = replay;
+    }
+
+    /**
+     * Publish this game's events on 'events' from now on (null to stop).
+     */
+    public void setEvents(GameEventBus events) {
+        this.events = events;
+    }
+
+    // -------------------- Getters --------------------
+
+    public GameState getState() {
+        return state;
+    }
+
+    public RollADice getDiceLogic() {
+        return diceLogic;
+    }
+
+    public int getBoardSize() {
+        return state.getBoardSize();
+    }
+
+    public BoardRules getRules() {
+        return rules;
+    }
+
+    public String getSquareType(int square) {
+        return rules.getSquareType(square);
+    }
+
+    public int getSquarePoints(int square) {
+        return rules.getSquarePoints(square);
+    }
+
+    public RunScorer getScorer() {
+        return scorer;
+    }
+
+    public int getPendingSquare() {
+        return pendingSquare;
+    }
+
+    public int getCurrentPlayer() {
+        return state.getCurrentPlayer();
+    }
+}
@@ -0,0 +1,184 @@
+package kivi;
+
+/**
+ * Something that happened in a game, published by GameEngine on its
+ * GameEventBus. Events are immutable snapshots, so they can be handed to
+ * other threads (e.g. the Swing thread) while the game goes on:
+ * - TurnStarted, TurnEnded and GameOver mark the turns
+ * - DiceRolled and DieToggled carry the whole dice state after the change,
+ *   so a later one makes an earlier one of the same type obsolete
+ * - StonePlaced moves this turn's tentative stone
+ */
+public abstract class GameEvent {
+    private final int player;
+
+    private GameEvent(int player) {
+        this.player = player;
+    }
+
+    /**
+     * Whether a newer event of the same type makes this one obsolete, so a
+     * subscriber that falls behind may skip it (see GameEventBus.subscribeUi).
+     */
+    public boolean isCoalescable() {
+        return false;
+    }
+
+    /**
+     * The player whose turn it is.
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    public static final class TurnStarted extends GameEvent {
+        public TurnStarted(int player) {
+            super(player);
+        }
+    }
+
+    /**
+     * The dice after a change: values, kept dice (bit i = die i), rolls so
+     * far and the free squares the kept dice may go on.
+     */
+    public abstract static class DiceEvent extends GameEvent {
+        private final int[] values;
+        private final int keepMask;
+        private final int rollCount;
+        private final long[] validSquares;
+
+        private DiceEvent(int player, int[] values, int keepMask, int rollCount, long[] validSquares) {
+            super(player);
+            this.values = values.clone();
+            this.keepMask = keepMask;
+            this.rollCount = rollCount;
+            this.validSquares = validSquares.clone();
+        }
+
+        @Override
+        public boolean isCoalescable() {
+            return true;
+        }
+
+        public int getValue(int die) {
+            return values[die];
+        }
+
+        public int[] getValues() {
+            return values.clone();
+        }
+
+        public int getKeepMask() {
+            return keepMask;
+        }
+
+        public int getRollCount() {
+            return rollCount;
+        }
+
+        /**
+         * Returns a copy of the valid squares' Bitboard.
+         */
+        public long[] getValidSquares() {
+            return validSquares.clone();
+        }
+    }
+
+    /**
+     * The dice were rolled; any tentative stone was taken back.
+     */
+    public static final class DiceRolled extends DiceEvent {
+        public DiceRolled(int player, int[] values, int keepMask, int rollCount, long[] validSquares) {
+            super(player, values, keepMask, rollCount, validSquares);
+        }
+    }
+
+    /**
+     * A die was kept or let go, or for die -1 the whole keep mask was set
+     * (e.g. by a CPU).
+     */
+    public static final class DieToggled extends DiceEvent {
+        private final int die;
+
+        public DieToggled(int player, int die, int[] values, int keepMask, int rollCount, long[] validSquares) {
+            super(player, values, keepMask, rollCount, validSquares);
+            this.die = die;
+        }
+
+        public int getDie() {
+            return die;
+        }
+    }
+
+    /**
+     * This turn's tentative stone moved to 'square'.
+     */
+    public static final class StonePlaced extends GameEvent {
+        private final int square;
+
+        public StonePlaced(int player, int square) {
+            super(player);
+            this.square = square;
+        }
+
+        @Override
+        public boolean isCoalescable() {
+            return true;
+        }
+
+        public int getSquare() {
+            return square;
+        }
+    }
+
+    /**
+     * The turn is over: the stone on 'square' (-1 for none) is committed and
+     * scored 'points'. Carries every player's stones left and score after it.
+     */
+    public static final class TurnEnded extends GameEvent {
+        private final int square;
+        private final int points;
+        private final int[] stonesLeft;
+        private final int[] scores;
+
+        public TurnEnded(int player, int square, int points, int[] stonesLeft, int[] scores) {
+            super(player);
+            this.square = square;
+            this.points = points;
+            this.stonesLeft = stonesLeft.clone();
+            this.scores = scores.clone();
+        }
+
+        public int getSquare() {
+            return square;
+        }
+
+        public int getPoints() {
+            return points;
+        }
+
+        public int[] getStonesLeft() {
+            return stonesLeft.clone();
+        }
+
+        public int[] getScores() {
+            return scores.clone();
+        }
+    }
+
+    /**
+     * The last stone is down ('player' ended the final turn).
+     */
+    public static final class GameOver extends GameEvent {
+        private final int[] scores;
+
+        public GameOver(int player, int[] scores) {
+            super(player);
+            this.scores = scores.clone();
+        }
+
+        public int[] getScores() {
+            return scores.clone();
+        }
+    }
+}
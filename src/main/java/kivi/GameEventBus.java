@@ -0,0 +1,95 @@
+package kivi;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Hands a game's GameEvents to whoever subscribed to their type:
+ * - subscribe: called right away on the publishing thread (the game loop),
+ *   for every event, e.g. logging, saving, networking or AI
+ * - subscribeUi: called later on the Swing thread through the game's
+ *   GameLoop, so updates for a burst of events run in one UI pass per
+ *   frame; a coalescable event replaces the same subscriber's earlier one
+ *   of the same type that has not been delivered yet
+ * Subscribing to GameEvent.class gets every event. Subscribe before the
+ * game starts; publish from the game loop only.
+ */
+public class GameEventBus {
+    /**
+     * Receives the events of the type it subscribed to.
+     */
+    public interface Subscriber<E extends GameEvent> {
+        void on(E event);
+    }
+
+    private final GameLoop loop; // delivers to UI subscribers, null if there are none
+    private final Map<Class<?>, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    public GameEventBus() {
+        this(null);
+    }
+
+    public GameEventBus(GameLoop loop) {
+        this.loop = loop;
+    }
+
+    public <E extends GameEvent> void subscribe(Class<E> type, Subscriber<? super E> subscriber) {
+        add(type, new Subscription(subscriber, false));
+    }
+
+    public <E extends GameEvent> void subscribeUi(Class<E> type, Subscriber<? super E> subscriber) {
+        if (loop == null) {
+            throw new IllegalStateException("No GameLoop to deliver UI events");
+        }
+        add(type, new Subscription(subscriber, true));
+    }
+
+    public void publish(GameEvent event) {
+        deliver(subscriptions.get(event.getClass()), event);
+        deliver(subscriptions.get(GameEvent.class), event);
+    }
+
+    private void add(Class<?> type, Subscription subscription) {
+        subscriptions.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(subscription);
+    }
+
+    private void deliver(List<Subscription> list, GameEvent event) {
+        if (list == null) {
+            return;
+        }
+        for (Subscription subscription : list) {
+            if (!subscription.ui) {
+                subscription.deliver(event);
+            } else if (event.isCoalescable()) {
+                // Keyed by subscription and type: replaces its undelivered predecessor
+                loop.ui(subscription.key(event.getClass()), () -> subscription.deliver(event));
+            } else {
+                loop.ui(() -> subscription.deliver(event));
+            }
+        }
+    }
+
+    private static final class Subscription {
+        private final Subscriber<GameEvent> subscriber;
+        private final boolean ui;
+        // Coalescing key per event type (a subscription to GameEvent.class sees several)
+        private final Map<Class<?>, Object> keys = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        Subscription(Subscriber<?> subscriber, boolean ui) {
+            // Only events of the subscribed type (or a subtype) are delivered
+            this.subscriber = (Subscriber<GameEvent>) subscriber;
+            this.ui = ui;
+        }
+
+        Object key(Class<?> type) {
+            return keys.computeIfAbsent(type, t -> new Object());
+        }
+
+        void deliver(GameEvent event) {
+            subscriber.on(event);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package kivi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * Single-threaded event loop that owns a game's state:
+ * - Every change to the GameEngine is a message run on the loop thread,
+ *   one at a time, so player input, turn timeouts and CPU players never race
+ * - Delayed work (CPU steps, turn timeouts) is scheduled on the same
+ *   thread and can be cancelled
+ * - UI updates queued while handling messages are handed to the Swing
+ *   thread in batches, one invokeLater per batch and at most one batch per
+ *   display frame; a keyed update replaces the same key's queued one
+ * All games share one scheduler thread instead of starting a thread per CPU turn.
+ */
+public class GameLoop {
+    private static final ScheduledThreadPoolExecutor SCHEDULER = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "kivi-game-loop");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+    private static final Object REPLACED = new Object(); // key of an update that was replaced
+
+    private final Object uiLock = new Object();
+    private List<Runnable> uiBatch = new ArrayList<>();
+    private List<Object> uiKeys = new ArrayList<>(); // per update in uiBatch, null if unkeyed
+    private long lastFlush = System.nanoTime() - FRAME_NANOS;
+    private volatile boolean closed;
+
+    /**
+     * Run a message on the loop thread, after the ones already queued.
+     */
+    public void post(Runnable message) {
+        SCHEDULER.execute(() -> handle(message));
+    }
+
+    /**
+     * Run a message on the loop thread after a delay.
+     * The returned future cancels it if it has not started yet.
+     */
+    public ScheduledFuture<?> schedule(Runnable message, long delayMillis) {
+        return SCHEDULER.schedule(() -> handle(message), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue a UI update (call from the loop thread). Updates queued before
+     * the Swing thread gets to them all run together, in order.
+     */
+    public void ui(Runnable update) {
+        ui(null, update);
+    }
+
+    /**
+     * Queue a UI update that replaces the last queued update with the same
+     * key, if no unkeyed update was queued after that one. Meant for updates
+     * that show the latest state of something, e.g. the dice.
+     */
+    public void ui(Object key, Runnable update) {
+        synchronized (uiLock) {
+            if (uiBatch.isEmpty()) {
+                scheduleFlush();
+            }
+            if (key != null) {
+                // Unkeyed updates stay in order with everything around them
+                for (int i = uiKeys.size() - 1; i >= 0 && uiKeys.get(i) != null; i--) {
+                    if (uiKeys.get(i) == key) {
+                        uiBatch.set(i, null);
+                        uiKeys.set(i, REPLACED);
+                        break;
+                    }
+                }
+            }
+            uiBatch.add(update);
+            uiKeys.add(key);
+        }
+    }
+
+    /**
+     * Stop handling messages for this game; anything still queued or
+     * scheduled is dropped when it comes up.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    private void handle(Runnable message) {
+        if (closed) {
+            return;
+        }
+        try {
+            message.run();
+        } catch (RuntimeException e) {
+            // Keep the loop alive for the other messages
+            e.printStackTrace();
+        }
+    }
+
+    // At most one batch per frame: a batch started right after the last one waits
+    private void scheduleFlush() {
+        long wait = lastFlush + FRAME_NANOS - System.nanoTime();
+        if (wait <= 0) {
+            SwingUtilities.invokeLater(this::flushUi);
+        } else {
+            SCHEDULER.schedule(() -> SwingUtilities.invokeLater(this::flushUi), wait, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flushUi() {
+        List<Runnable> batch;
+        synchronized (uiLock) {
+            batch = uiBatch;
+            uiBatch = new ArrayList<>();
+            uiKeys = new ArrayList<>();
+            lastFlush = System.nanoTime();
+        }
+        for (Runnable update : batch) {
+            if (update != null) {
+                update.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package kivi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replay log of one game: the dice seed, the board definition (see
+ * BoardRules) plus every decision, which is enough to re-execute the
+ * game bit-exactly (the dice only depend on the seed and on which dice
+ * were kept).
+ * - Recording: hand the log to GameEngine.setReplay; each roll, toggle,
+ *   keep, placement and end of turn adds a byte or three in memory, and
+ *   flush() writes them out
+ * - Replaying: replay(path) plays the actions back on a fresh engine at
+ *   full speed, with no timers or sleeps, and checks every turn still
+ *   scores what it did when logged
+ *
+ * Usage: java kivi.GameReplay file-or-directory ...
+ * replays every log found and reports any that no longer play out the same,
+ * e.g. after a rule change.
+ */
+public class GameReplay {
+    private static final int MAGIC = 0x4B495652; // "KIVR"
+    private static final int VERSION = 2; // 1: no board definition, always the standard board
+
+    // Actions; END_TURN is followed by the points the turn scored (short)
+    private static final byte ROLL = 1;
+    private static final byte TOGGLE = 2;   // + die index
+    private static final byte KEEP = 3;     // + keep mask
+    private static final byte PLACE = 4;    // + square (unsigned)
+    private static final byte END_TURN = 5;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+    private GameReplay(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Start a log at 'path' for a game on the 'rules' board whose dice use 'seed'.
+     */
+    public static GameReplay create(Path path, long seed, BoardRules rules, int playerCount) throws IOException {
+        byte[] definition = rules.getDefinition().getBytes(StandardCharsets.UTF_8);
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        GameReplay replay = new GameReplay(channel);
+        replay.buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(seed)
+                .put((byte) rules.getBoardSize())
+                .put((byte) playerCount);
+        replay.reserve(Integer.BYTES + definition.length).putInt(definition.length).put(definition);
+        replay.flush();
+        return replay;
+    }
+
+    /**
+     * Where the game window records its games: the directory named by the
+     * kivi.replayDir system property, or null (the default) to record none.
+     */
+    public static Path getRecordingDirectory() {
+        String directory = System.getProperty("kivi.replayDir");
+        return directory != null ? Paths.get(directory) : null;
+    }
+
+    /**
+     * Delete the oldest logs (*.kivr) in 'directory' until at most 'keep'
+     * are left. A missing directory has none.
+     */
+    public static void prune(Path directory, int keep) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Map<Path, FileTime> modified = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.kivr")) {
+            for (Path file : files) {
+                modified.put(file, Files.getLastModifiedTime(file));
+            }
+        }
+        List<Path> oldestFirst = new ArrayList<>(modified.keySet());
+        oldestFirst.sort(Comparator.comparing(modified::get));
+        for (int i = 0; i < oldestFirst.size() - Math.max(keep, 0); i++) {
+            Files.deleteIfExists(oldestFirst.get(i));
+        }
+    }
+
+    // -------------------- Recording --------------------
+
+    public void logRoll() {
+        reserve(1).put(ROLL);
+    }
+
+    public void logToggle(int dieIndex) {
+        reserve(2).put(TOGGLE).put((byte) dieIndex);
+    }
+
+    public void logKeep(int keepMask) {
+        reserve(2).put(KEEP).put((byte) keepMask);
+    }
+
+    public void logPlace(int square) {
+        reserve(2).put(PLACE).put((byte) square);
+    }
+
+    public void logEndTurn(int points) {
+        reserve(3).put(END_TURN).putShort((short) points);
+    }
+
+    /**
+     * Write the actions logged so far to the file.
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    // Logging never does I/O, so the buffer grows instead of flushing
+    private ByteBuffer reserve(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        return buffer;
+    }
+
+    // -------------------- Replaying --------------------
+
+    /**
+     * Re-execute a logged game: same seed, same actions, no delays.
+     * Returns the engine at the end of the log. Throws IllegalStateException
+     * if a placement is no longer legal or a turn scores differently.
+     */
+    public static GameEngine replay(Path path) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(path));
+        GameEngine engine;
+        try {
+            int version = in.getInt() == MAGIC ? in.getInt() : -1;
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Not a Kivi replay log (or from another version): " + path);
+            }
+            long seed = in.getLong();
+            int boardSize = in.get();
+            int playerCount = in.get();
+            BoardRules rules = BoardRules.standard();
+            if (version >= 2) {
+                byte[] definition = new byte[in.getInt()];
+                in.get(definition);
+                rules = BoardRules.parse(new String(definition, StandardCharsets.UTF_8));
+            }
+            if (boardSize != rules.getBoardSize()) {
+                throw new IOException("Unsupported board size " + boardSize + ": " + path);
+            }
+            engine = new GameEngine(rules, playerCount, new RollADice(seed));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Replay log header is truncated: " + path, e);
+        }
+
+        engine.startTurn();
+        int turn = 0;
+        try {
+            while (in.hasRemaining()) {
+                byte type = in.get();
+                switch (type) {
+                    case ROLL:
+                        engine.rollDice();
+                        break;
+                    case TOGGLE:
+                        engine.toggleDieSelection(in.get());
+                        break;
+                    case KEEP:
+                        engine.setKeepMask(in.get());
+                        break;
+                    case PLACE: {
+                        int square = Byte.toUnsignedInt(in.get());
+                        if (!engine.placeStone(square)) {
+                            throw new IllegalStateException(path + ": turn " + turn
+                                    + " places on square " + square + ", which is no longer legal");
+                        }
+                        break;
+                    }
+                    case END_TURN: {
+                        int logged = in.getShort();
+                        int points = engine.endTurn();
+                        if (points != logged) {
+                            throw new IllegalStateException(path + ": turn " + turn + " scores "
+                                    + points + " points, logged " + logged);
+                        }
+                        engine.startTurn();
+                        turn++;
+                        break;
+                    }
+                    default:
+                        throw new IOException("Unknown action " + type + " in " + path);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            // The log was cut off mid-action (e.g. the game crashed); stop there
+        }
+        return engine;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> logs = new ArrayList<>();
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "*.kivr")) {
+                    for (Path file : files) {
+                        logs.add(file);
+                    }
+                }
+            } else {
+                logs.add(path);
+            }
+        }
+
+        int diverged = 0;
+        long start = System.nanoTime();
+        for (Path log : logs) {
+            try {
+                replay(log);
+            } catch (IllegalStateException | IOException e) {
+                System.out.println(e.getMessage());
+                diverged++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games replayed, %d diverged, %.0f games/s%n",
+                logs.size(), diverged, logs.size() / seconds);
+        if (diverged > 0) {
+            System.exit(1);
+        }
+    }
+}
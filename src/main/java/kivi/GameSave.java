@@ -0,0 +1,393 @@
+package kivi;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A saved game file: a compact binary snapshot followed by an append-only
+ * journal of every action taken since.
+ * - The snapshot holds the players' setup, the board definition (see
+ *   BoardRules), board owners, stones, scores, dice, roll count, current
+ *   player, the turn's own time left and every player's time bank
+ * - Every roll, die toggle, keep, placement and end of turn appends a
+ *   record of a few bytes, so saving as the game goes is O(1) per action
+ * - Saving again writes a fresh snapshot and starts an empty journal
+ * Loading reads the snapshot and replays only the journal tail. A record
+ * cut off by a crash is dropped, along with anything after it.
+ *
+ * Not thread-safe: use it from the game loop only.
+ */
+public class GameSave {
+    private static final int MAGIC = 0x4B495653; // "KIVS"
+    private static final int VERSION = 3; // 1: no board definition, always the standard board; 2: no time banks
+    private static final int HEADER_BYTES = 20; // magic, version, snapshot length, CRC32 of the snapshot
+
+    // Journal records: type, the turn's own time left (ms, negative once into
+    // the bank; for END_TURN the bank the player has left), then the payload
+    private static final byte ROLL = 1;     // six dice values
+    private static final byte TOGGLE = 2;   // die index
+    private static final byte KEEP = 3;     // keep mask
+    private static final byte PLACE = 4;    // square (unsigned)
+    private static final byte END_TURN = 5; // no payload
+    private static final int RECORD_BYTES = 1 + Integer.BYTES + 6;
+
+    private final Path path;
+    private final String[] playerNames;
+    private final Color[] playerColors;
+    private final boolean[] isHuman;
+    private final String[] difficulties;
+    private final int turnTime;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private FileChannel journal;
+
+    // Set when loading: the restored game, the turn time left and the time banks
+    private GameEngine engine;
+    private long allowanceMillis;
+    private long[] bankMillis;
+
+    private GameSave(Path path, String[] playerNames, Color[] playerColors, boolean[] isHuman,
+            String[] difficulties, int turnTime) {
+        this.path = path;
+        this.playerNames = playerNames;
+        this.playerColors = playerColors;
+        this.isHuman = isHuman;
+        this.difficulties = difficulties;
+        this.turnTime = turnTime;
+    }
+
+    /**
+     * Start saving a game to 'path': write its snapshot and open the journal.
+     */
+    public static GameSave create(Path path, String[] playerNames, Color[] playerColors, boolean[] isHuman,
+            String[] difficulties, int turnTime, GameEngine engine, long allowanceMillis, long[] bankMillis)
+            throws IOException {
+        GameSave save = new GameSave(path, playerNames, playerColors, isHuman, difficulties, turnTime);
+        save.snapshot(engine, allowanceMillis, bankMillis);
+        return save;
+    }
+
+    /**
+     * Replace the file with a fresh snapshot of the game and an empty journal.
+     * 'allowanceMillis' is the turn's own time left (negative once into the
+     * bank), 'bankMillis' every player's time bank.
+     */
+    public void snapshot(GameEngine engine, long allowanceMillis, long[] bankMillis) throws IOException {
+        byte[] snapshot = writeSnapshot(engine, allowanceMillis, bankMillis);
+        CRC32 crc = new CRC32();
+        crc.update(snapshot);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + snapshot.length);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(snapshot.length)
+                .putLong(crc.getValue())
+                .put(snapshot);
+
+        close();
+        // Write next to the target and move it in place, so a crash never leaves half a file
+        Path parent = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(parent, "kivi-save", ".tmp");
+        try {
+            Files.write(temp, buffer.array());
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        journal = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Read a saved game: its setup, and an engine with the snapshot and the
+     * journal replayed. Further actions are appended to the same file.
+     */
+    public static GameSave load(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        try {
+            int version = buffer.getInt() == MAGIC ? buffer.getInt() : -1;
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Not a Kivi save file (or from another version): " + path);
+            }
+            int snapshotLength = buffer.getInt();
+            long expectedCrc = buffer.getLong();
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), HEADER_BYTES, snapshotLength);
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException("Save file snapshot is corrupted: " + path);
+            }
+
+            GameSave save = readSnapshot(path, version, new DataInputStream(
+                    new ByteArrayInputStream(buffer.array(), HEADER_BYTES, snapshotLength)));
+            buffer.position(HEADER_BYTES + snapshotLength);
+            int journalEnd = save.replay(buffer);
+            save.journal = FileChannel.open(path, StandardOpenOption.WRITE);
+            save.journal.truncate(journalEnd); // drop a torn last record
+            save.journal.position(journalEnd);
+            return save;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Save file is truncated or invalid: " + path, e);
+        }
+    }
+
+    // -------------------- Journal --------------------
+
+    public void logRoll(int[] values, long allowanceMillis) throws IOException {
+        startRecord(ROLL, allowanceMillis);
+        for (int i = 0; i < 6; i++) {
+            record.put((byte) values[i]);
+        }
+        writeRecord();
+    }
+
+    public void logToggle(int dieIndex, long allowanceMillis) throws IOException {
+        startRecord(TOGGLE, allowanceMillis);
+        record.put((byte) dieIndex);
+        writeRecord();
+    }
+
+    public void logKeep(int keepMask, long allowanceMillis) throws IOException {
+        startRecord(KEEP, allowanceMillis);
+        record.put((byte) keepMask);
+        writeRecord();
+    }
+
+    public void logPlace(int square, long allowanceMillis) throws IOException {
+        startRecord(PLACE, allowanceMillis);
+        record.put((byte) square);
+        writeRecord();
+    }
+
+    /**
+     * 'bankMillis' is the time bank the player ending the turn has left.
+     */
+    public void logEndTurn(long bankMillis) throws IOException {
+        startRecord(END_TURN, bankMillis);
+        writeRecord();
+    }
+
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private void startRecord(byte type, long millis) {
+        record.clear();
+        record.put(type).putInt((int) millis);
+    }
+
+    // One write per action; no fsync, the OS flushes the page cache
+    private void writeRecord() throws IOException {
+        record.flip();
+        while (record.hasRemaining()) {
+            journal.write(record);
+        }
+    }
+
+    // Apply journal records to the restored engine; returns where the last whole record ends
+    private int replay(ByteBuffer buffer) {
+        int[] values = new int[6];
+        int end = buffer.position();
+        while (buffer.remaining() >= 1 + Integer.BYTES) {
+            byte type = buffer.get();
+            int millis = buffer.getInt();
+            int payload = type == ROLL ? 6 : type == END_TURN ? 0 : 1;
+            if (buffer.remaining() < payload) {
+                break;
+            }
+            switch (type) {
+                case ROLL:
+                    for (int i = 0; i < 6; i++) {
+                        values[i] = buffer.get();
+                    }
+                    engine.applyRoll(values);
+                    break;
+                case TOGGLE:
+                    engine.toggleDieSelection(buffer.get());
+                    break;
+                case KEEP:
+                    engine.getDiceLogic().setKeepMask(buffer.get());
+                    break;
+                case PLACE:
+                    engine.placeStone(Byte.toUnsignedInt(buffer.get()));
+                    break;
+                case END_TURN:
+                    if (bankMillis != null) {
+                        bankMillis[engine.getCurrentPlayer()] = millis;
+                    }
+                    engine.endTurn();
+                    engine.startTurn();
+                    millis = turnTime * 1000;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown journal record " + type);
+            }
+            allowanceMillis = millis;
+            end = buffer.position();
+        }
+        return end;
+    }
+
+    // -------------------- Snapshot --------------------
+
+    private byte[] writeSnapshot(GameEngine engine, long allowanceMillis, long[] bankMillis) throws IOException {
+        GameState state = engine.getState();
+        RollADice dice = engine.getDiceLogic();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(state.getBoardSize());
+        out.writeByte(state.getPlayerCount());
+        for (int i = 0; i < state.getPlayerCount(); i++) {
+            out.writeUTF(playerNames[i]);
+            out.writeInt(playerColors[i].getRGB());
+            out.writeBoolean(isHuman[i]);
+            out.writeUTF(difficulties[i] == null ? "" : difficulties[i]);
+        }
+        out.writeShort(turnTime);
+        out.writeUTF(engine.getRules().getDefinition());
+
+        for (int square = 0; square < state.getSquareCount(); square++) {
+            out.writeByte(state.getOwner(square));
+        }
+        for (int i = 0; i < state.getPlayerCount(); i++) {
+            out.writeByte(state.getStonesLeft(i));
+            out.writeShort(state.getScore(i));
+        }
+        out.writeByte(state.getCurrentPlayer());
+
+        for (int value : dice.getDiceValues()) {
+            out.writeByte(value);
+        }
+        out.writeByte(dice.getKeepMask());
+        out.writeByte(dice.getRollCount());
+        out.writeByte(engine.getPendingSquare()); // unsigned, 0xFF for none
+        out.writeInt((int) allowanceMillis);
+        for (int i = 0; i < state.getPlayerCount(); i++) {
+            out.writeInt((int) bankMillis[i]);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static GameSave readSnapshot(Path path, int version, DataInputStream in) throws IOException {
+        int boardSize = in.readByte();
+        int playerCount = in.readByte();
+        if (playerCount < GameState.MIN_PLAYERS || playerCount > GameState.MAX_PLAYERS) {
+            throw new IOException("Unsupported saved game: board " + boardSize + ", " + playerCount + " players");
+        }
+        String[] playerNames = new String[playerCount];
+        Color[] playerColors = new Color[playerCount];
+        boolean[] isHuman = new boolean[playerCount];
+        String[] difficulties = new String[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            playerNames[i] = in.readUTF();
+            playerColors[i] = new Color(in.readInt(), true);
+            isHuman[i] = in.readBoolean();
+            String difficulty = in.readUTF();
+            difficulties[i] = difficulty.isEmpty() ? null : difficulty;
+        }
+        int turnTime = in.readShort();
+        BoardRules rules = version >= 2 ? BoardRules.parse(in.readUTF()) : BoardRules.standard();
+        if (rules.getBoardSize() != boardSize) {
+            throw new IOException("Unsupported saved game: board " + boardSize + ", " + playerCount + " players");
+        }
+        GameSave save = new GameSave(path, playerNames, playerColors, isHuman, difficulties, turnTime);
+
+        int[] owners = new int[boardSize * boardSize];
+        for (int square = 0; square < owners.length; square++) {
+            owners[square] = in.readByte();
+        }
+        int[] stonesLeft = new int[playerCount];
+        int[] scores = new int[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            stonesLeft[i] = in.readByte();
+            scores[i] = in.readShort();
+        }
+        int currentPlayer = in.readByte();
+
+        int[] values = new int[6];
+        for (int i = 0; i < 6; i++) {
+            values[i] = in.readByte();
+        }
+        int keepMask = in.readByte();
+        int rollCount = in.readByte();
+        int pendingSquare = in.readUnsignedByte();
+
+        save.engine = new GameEngine(rules, playerCount, new RollADice());
+        save.engine.getState().restore(owners, stonesLeft, scores, currentPlayer);
+        save.engine.getDiceLogic().restore(values, keepMask, rollCount);
+        if (pendingSquare != 0xFF) {
+            save.engine.placeStone(pendingSquare);
+        }
+        save.allowanceMillis = in.readInt();
+        if (version >= 3) {
+            save.bankMillis = new long[playerCount];
+            for (int i = 0; i < playerCount; i++) {
+                save.bankMillis[i] = in.readInt();
+            }
+        }
+        return save;
+    }
+
+    // -------------------- Getters --------------------
+
+    public Path getPath() {
+        return path;
+    }
+
+    public String[] getPlayerNames() {
+        return playerNames;
+    }
+
+    public Color[] getPlayerColors() {
+        return playerColors;
+    }
+
+    public boolean[] getIsHuman() {
+        return isHuman;
+    }
+
+    public String[] getDifficulties() {
+        return difficulties;
+    }
+
+    public int getTurnTime() {
+        return turnTime;
+    }
+
+    /**
+     * The restored game (only for a loaded save).
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * The current turn's own time left when the game was saved, negative if
+     * the player was into their bank (only for a loaded save). Saves before
+     * version 3 counted the bank in as well.
+     */
+    public long getAllowanceMillis() {
+        return allowanceMillis;
+    }
+
+    /**
+     * Every player's time bank when the game was saved, or null for saves
+     * before version 3, which did not keep them (only for a loaded save).
+     */
+    public long[] getBankMillis() {
+        return bankMillis;
+    }
+}
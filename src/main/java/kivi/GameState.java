@@ -0,0 +1,266 @@
+package kivi;
+
+import java.util.Arrays;
+
+/**
+ * Pure-Java game state, with no Swing in it:
+ * - Which player owns each square (or EMPTY)
+ * - Stones left and score per player
+ * - Whose turn it is
+ * Squares are indexed row * boardSize + col. Occupancy is also kept as a
+ * multi-word Bitboard so rule checks can work on whole-board masks a word
+ * at a time, and each player's stones as a bitboard plus one bit pattern
+ * per row and per column, so scoring reads a line with one array access.
+ */
+public class GameState {
+    public static final int EMPTY = -1;
+    public static final int STONES_PER_PLAYER = 10;
+    public static final int MIN_PLAYERS = 2;
+    public static final int MAX_PLAYERS = 8;
+    public static final int MAX_BOARD_SIZE = 15; // squares fit an unsigned byte in saves and logs
+
+    private final int boardSize;
+    private final int playerCount;
+    private final int[] owners;
+    private final long[] occupied; // bit i set when square i holds a stone
+    private int stonesOnBoard;
+    private final long[][] playerMasks;
+    private final int[][] rowPatterns;    // [player][row]: bit col set for the player's stones
+    private final int[][] columnPatterns; // [player][col]: bit row set for the player's stones
+    private final int[] stonesLeft;
+    private final int[] scores;
+    private int currentPlayer;
+
+    public GameState(int boardSize, int playerCount) {
+        if (boardSize < 2 || boardSize > MAX_BOARD_SIZE) {
+            throw new IllegalArgumentException("Board size must be 2 to " + MAX_BOARD_SIZE + ": " + boardSize);
+        }
+        if (playerCount < MIN_PLAYERS || playerCount > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Need " + MIN_PLAYERS + " to " + MAX_PLAYERS + " players: " + playerCount);
+        }
+        this.boardSize = boardSize;
+        this.playerCount = playerCount;
+        owners = new int[boardSize * boardSize];
+        occupied = Bitboard.create(owners.length);
+        playerMasks = new long[playerCount][occupied.length];
+        rowPatterns = new int[playerCount][boardSize];
+        columnPatterns = new int[playerCount][boardSize];
+        stonesLeft = new int[playerCount];
+        scores = new int[playerCount];
+        reset();
+    }
+
+    /**
+     * Put the state back to the start of a game: empty board,
+     * every player with a full set of stones, player 0 to move.
+     */
+    public void reset() {
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = EMPTY;
+        }
+        Arrays.fill(occupied, 0L);
+        stonesOnBoard = 0;
+        for (int i = 0; i < playerCount; i++) {
+            Arrays.fill(playerMasks[i], 0L);
+            Arrays.fill(rowPatterns[i], 0);
+            Arrays.fill(columnPatterns[i], 0);
+            stonesLeft[i] = STONES_PER_PLAYER;
+            scores[i] = 0;
+        }
+        currentPlayer = 0;
+    }
+
+    /**
+     * Overwrite this state with another one of the same shape.
+     * Lets simulations reuse one object instead of allocating per game.
+     */
+    public void copyFrom(GameState other) {
+        if (other.boardSize != boardSize || other.playerCount != playerCount) {
+            throw new IllegalArgumentException("GameState shape mismatch");
+        }
+        System.arraycopy(other.owners, 0, owners, 0, owners.length);
+        System.arraycopy(other.occupied, 0, occupied, 0, occupied.length);
+        stonesOnBoard = other.stonesOnBoard;
+        for (int i = 0; i < playerCount; i++) {
+            System.arraycopy(other.playerMasks[i], 0, playerMasks[i], 0, occupied.length);
+            System.arraycopy(other.rowPatterns[i], 0, rowPatterns[i], 0, boardSize);
+            System.arraycopy(other.columnPatterns[i], 0, columnPatterns[i], 0, boardSize);
+        }
+        System.arraycopy(other.stonesLeft, 0, stonesLeft, 0, playerCount);
+        System.arraycopy(other.scores, 0, scores, 0, playerCount);
+        currentPlayer = other.currentPlayer;
+    }
+
+    /**
+     * Overwrite this state with saved contents: the owner of each square
+     * (or EMPTY), stones left and score per player, and the player to move.
+     */
+    public void restore(int[] squareOwners, int[] playerStonesLeft, int[] playerScores, int player) {
+        reset();
+        for (int square = 0; square < owners.length; square++) {
+            int owner = squareOwners[square];
+            if (owner != EMPTY) {
+                owners[square] = owner;
+                Bitboard.set(occupied, square);
+                stonesOnBoard++;
+                addStone(owner, square);
+            }
+        }
+        System.arraycopy(playerStonesLeft, 0, stonesLeft, 0, playerCount);
+        System.arraycopy(playerScores, 0, scores, 0, playerCount);
+        currentPlayer = player;
+    }
+
+    public GameState copy() {
+        GameState copy = new GameState(boardSize, playerCount);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Commit a stone for the given player on a free square.
+     * 'scoreDelta' is how much the stone changes the player's score.
+     */
+    public void placeStone(int square, int player, int scoreDelta) {
+        if (isOccupied(square)) {
+            throw new IllegalStateException("Square " + square + " is already occupied");
+        }
+        owners[square] = player;
+        Bitboard.set(occupied, square);
+        stonesOnBoard++;
+        addStone(player, square);
+        stonesLeft[player]--;
+        scores[player] += scoreDelta;
+    }
+
+    /**
+     * Commit a stone for the given player on another player's square,
+     * taking it over. 'scoreDelta' is how much the stone changes the
+     * player's score, 'victimScoreDelta' how much losing it changes the
+     * previous owner's. Only the player's stones left go down.
+     */
+    public void captureStone(int square, int player, int scoreDelta, int victimScoreDelta) {
+        int victim = owners[square];
+        if (victim == EMPTY || victim == player) {
+            throw new IllegalStateException("Square " + square + " holds no stone to capture");
+        }
+        removeStone(victim, square);
+        scores[victim] += victimScoreDelta;
+        owners[square] = player;
+        addStone(player, square);
+        stonesLeft[player]--;
+        scores[player] += scoreDelta;
+    }
+
+    // Mark the player's stone on 'square' in their bitboard and line patterns
+    private void addStone(int player, int square) {
+        Bitboard.set(playerMasks[player], square);
+        rowPatterns[player][square / boardSize] |= 1 << (square % boardSize);
+        columnPatterns[player][square % boardSize] |= 1 << (square / boardSize);
+    }
+
+    private void removeStone(int player, int square) {
+        Bitboard.clear(playerMasks[player], square);
+        rowPatterns[player][square / boardSize] &= ~(1 << (square % boardSize));
+        columnPatterns[player][square % boardSize] &= ~(1 << (square / boardSize));
+    }
+
+    /**
+     * Pass the turn to the next player.
+     */
+    public void advancePlayer() {
+        currentPlayer = (currentPlayer + 1) % playerCount;
+    }
+
+    /**
+     * The game ends once any player runs out of stones or the board is full.
+     */
+    public boolean isGameOver() {
+        for (int i = 0; i < playerCount; i++) {
+            if (stonesLeft[i] <= 0) {
+                return true;
+            }
+        }
+        return stonesOnBoard == owners.length;
+    }
+
+    // -------------------- Getters --------------------
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public int getSquareCount() {
+        return owners.length;
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    public int getOwner(int square) {
+        return owners[square];
+    }
+
+    public boolean isOccupied(int square) {
+        return Bitboard.get(occupied, square);
+    }
+
+    /**
+     * Words in each of this board's bitboards (see Bitboard).
+     */
+    public int getWordCount() {
+        return occupied.length;
+    }
+
+    /**
+     * Word 'word' of the occupied squares' bitboard.
+     */
+    public long getOccupiedWord(int word) {
+        return occupied[word];
+    }
+
+    /**
+     * Word 'word' of the bitboard of the given player's stones.
+     */
+    public long getPlayerWord(int player, int word) {
+        return playerMasks[player][word];
+    }
+
+    /**
+     * The player's stones in one row: bit col.
+     */
+    public int getRowPattern(int player, int row) {
+        return rowPatterns[player][row];
+    }
+
+    /**
+     * The player's stones in one column: bit row.
+     */
+    public int getColumnPattern(int player, int col) {
+        return columnPatterns[player][col];
+    }
+
+    public int getStonesOnBoard() {
+        return stonesOnBoard;
+    }
+
+    public int getStonesLeft(int player) {
+        return stonesLeft[player];
+    }
+
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    /**
+     * Returns a copy of the per-player scores.
+     */
+    public int[] getScores() {
+        return scores.clone();
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+}
@@ -0,0 +1,115 @@
+package kivi;
+
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * Shows a MoveAdvisor's hints: a status line and one row per hint, e.g.
+ * "Place on AAA/BB (r2 c5) with 3 3 5: 2 pts" or
+ * "Keep 5 5, reroll: 1.84 pts (AAAA 41%)". The hint that keeps the dice selected now
+ * is bold. Like PlayerInfoPanel the rows have a fixed size, so new advice
+ * only repaints. Swing thread only.
+ */
+public class HintPanel extends JComponent implements MoveAdvisor.Listener {
+    private static final int PADDING = 5;
+    private static final String[] WIDEST = {
+            "5. Place on AAAA/BB (r15 c15) with 6 6 6 6 6 6: 99 pts",
+            "5. Keep 6 6 6 6 6, reroll: 99.99 pts (AA/BB/CC 100%)"
+    };
+
+    private final GameEngine board; // square types only, which never change
+    private final Font plainFont;
+    private final Font boldFont;
+    private final String[] lines = new String[MoveAdvisor.MAX_HINTS + 1];
+    private final boolean[] selected = new boolean[MoveAdvisor.MAX_HINTS + 1];
+
+    public HintPanel(GameEngine board) {
+        this.board = board;
+        Font font = UIManager.getFont("Label.font");
+        plainFont = font != null ? font : new Font("Dialog", Font.PLAIN, 12);
+        boldFont = plainFont.deriveFont(Font.BOLD);
+        FontMetrics metrics = getFontMetrics(boldFont);
+        int width = 0;
+        for (String line : WIDEST) {
+            width = Math.max(width, metrics.stringWidth(line));
+        }
+        Dimension size = new Dimension(2 * PADDING + width,
+                2 * PADDING + lines.length * metrics.getHeight());
+        setPreferredSize(size);
+        setMinimumSize(size);
+        setMaximumSize(size);
+        setAlignmentX(LEFT_ALIGNMENT);
+        clear();
+    }
+
+    /**
+     * Show no hints, e.g. between turns or while paused.
+     */
+    public void clear() {
+        showLines("", new MoveAdvisor.Hint[0], -1);
+    }
+
+    @Override
+    public void adviceChanged(MoveAdvisor.Hint[] hints, int keptHistogram, boolean complete) {
+        String status = hints.length == 0 ? "No move fits this roll"
+                : complete ? "Best choices:" : "Best choices (thinking...):";
+        showLines(status, hints, keptHistogram);
+    }
+
+    private void showLines(String status, MoveAdvisor.Hint[] hints, int keptHistogram) {
+        lines[0] = status;
+        for (int i = 0; i < MoveAdvisor.MAX_HINTS; i++) {
+            MoveAdvisor.Hint hint = i < hints.length ? hints[i] : null;
+            lines[i + 1] = hint == null ? "" : (i + 1) + ". " + describe(hint);
+            selected[i + 1] = hint != null && hint.getKeptHistogram() == keptHistogram;
+        }
+        repaint();
+    }
+
+    private String describe(MoveAdvisor.Hint hint) {
+        StringBuilder text = new StringBuilder();
+        String dice = dice(hint.getKeptHistogram());
+        if (hint.isReroll()) {
+            text.append(dice.isEmpty() ? "Reroll all" : "Keep " + dice + ", reroll");
+            text.append(String.format(": %.2f pts", hint.getValue()));
+            if (hint.getTarget() >= 0) {
+                text.append(String.format(" (%s %.0f%%)", board.getRules().getCombinationName(hint.getTarget()),
+                        100 * hint.getTargetOdds()));
+            }
+        } else {
+            int square = hint.getSquare();
+            int size = board.getBoardSize();
+            text.append("Place on ").append(board.getSquareType(square))
+                    .append(" (r").append(square / size + 1).append(" c").append(square % size + 1)
+                    .append(") with ").append(dice)
+                    .append(": ").append((int) hint.getValue()).append(" pts");
+        }
+        return text.toString();
+    }
+
+    // The faces of a histogram, lowest first, e.g. "3 3 5"
+    private static String dice(int histogram) {
+        StringBuilder text = new StringBuilder();
+        for (int face = 1; face <= DiceHistogram.FACES; face++) {
+            for (int n = DiceHistogram.count(histogram, face); n > 0; n--) {
+                if (text.length() > 0) {
+                    text.append(' ');
+                }
+                text.append(face);
+            }
+        }
+        return text.toString();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setColor(getForeground() != null ? getForeground() : Color.BLACK);
+        FontMetrics metrics = g2d.getFontMetrics(plainFont);
+        for (int i = 0; i < lines.length; i++) {
+            g2d.setFont(selected[i] ? boldFont : plainFont);
+            g2d.drawString(lines[i], PADDING, PADDING + i * metrics.getHeight() + metrics.getAscent());
+        }
+    }
+}
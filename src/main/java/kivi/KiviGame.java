@@ -1,3 +1,5 @@
+package kivi;
+
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
@@ -8,19 +10,21 @@ public class KiviGame extends JFrame {
     private JButton startNewGameButton, settingsButton, creditsButton, exitGameButton;
     private JComboBox<String> timerDropdown;
     private JComboBox<String> playerCountDropdown;
-    private JTextField[] playerNameFields = new JTextField[4];
-    private JCheckBox[] humanCheckboxes = new JCheckBox[4];
-    private JCheckBox[] cpuCheckboxes = new JCheckBox[4];
-    private JComboBox<String>[] difficultyDropdowns = new JComboBox[4];
-    private JComboBox<String>[] colorDropdowns = new JComboBox[4];
-    private JPanel[] playerPanels = new JPanel[4];
-    private BobbleheadPanel[] bobbleheads = new BobbleheadPanel[4];
+    private JComboBox<String> boardSizeDropdown;
+    private JTextField[] playerNameFields = new JTextField[GameState.MAX_PLAYERS];
+    private JCheckBox[] humanCheckboxes = new JCheckBox[GameState.MAX_PLAYERS];
+    private JCheckBox[] cpuCheckboxes = new JCheckBox[GameState.MAX_PLAYERS];
+    private JComboBox<String>[] difficultyDropdowns = newDropdowns(GameState.MAX_PLAYERS);
+    private JComboBox<String>[] colorDropdowns = newDropdowns(GameState.MAX_PLAYERS);
+    private JPanel[] playerPanels = new JPanel[GameState.MAX_PLAYERS];
+    private BobbleheadPanel[] bobbleheads = new BobbleheadPanel[GameState.MAX_PLAYERS];
     private Timer animationTimer;
+    private KiviServer onlineServer; // hosted game server, once started
 
     public KiviGame() {
         super("KIVI");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(800, 650);
+        setSize(800, 880);
         initUI();
         setLocationRelativeTo(null);
 
@@ -43,10 +47,12 @@ public class KiviGame extends JFrame {
 
         loadGameButton = new JButton("Load Game");
         loadGameButton.setBounds(200, 70, 150, 30);
+        loadGameButton.addActionListener(e -> loadGame());
         mainPanel.add(loadGameButton);
 
         onlineMultiplayerButton = new JButton("Online Multiplayer");
         onlineMultiplayerButton.setBounds(450, 70, 150, 30);
+        onlineMultiplayerButton.addActionListener(e -> hostOnlineServer());
         mainPanel.add(onlineMultiplayerButton);
 
         JLabel timerLabel = new JLabel("Timer");
@@ -67,7 +73,7 @@ public class KiviGame extends JFrame {
         playerCountLabel.setBounds(200, 170, 60, 30);
         mainPanel.add(playerCountLabel);
 
-        playerCountDropdown = new JComboBox<>(new String[] { "2", "3", "4" });
+        playerCountDropdown = new JComboBox<>(new String[] { "2", "3", "4", "5", "6", "7", "8" });
         playerCountDropdown.setBounds(260, 170, 60, 30);
         playerCountDropdown.addActionListener(e -> updateVisiblePlayers());
         mainPanel.add(playerCountDropdown);
@@ -77,28 +83,37 @@ public class KiviGame extends JFrame {
         startNewGameButton.addActionListener(e -> startNewGame());
         mainPanel.add(startNewGameButton);
 
+        JLabel boardSizeLabel = new JLabel("Board:");
+        boardSizeLabel.setBounds(490, 170, 50, 30);
+        mainPanel.add(boardSizeLabel);
+
+        // Larger boards repeat the standard layout
+        boardSizeDropdown = new JComboBox<>(new String[] { "7×7", "9×9", "11×11", "13×13", "15×15" });
+        boardSizeDropdown.setBounds(540, 170, 80, 30);
+        mainPanel.add(boardSizeDropdown);
+
         createPlayerPanels(mainPanel);
 
         settingsButton = new JButton("Settings");
-        settingsButton.setBounds(325, 470, 150, 30);
+        settingsButton.setBounds(325, 700, 150, 30);
         settingsButton.addActionListener(e -> openSettingsDialog());
         mainPanel.add(settingsButton);
 
         creditsButton = new JButton("Credits");
-        creditsButton.setBounds(325, 510, 150, 30);
+        creditsButton.setBounds(325, 740, 150, 30);
         mainPanel.add(creditsButton);
 
         exitGameButton = new JButton("Exit Game");
-        exitGameButton.setBounds(325, 550, 150, 30);
+        exitGameButton.setBounds(325, 780, 150, 30);
         exitGameButton.addActionListener(e -> System.exit(0));
         mainPanel.add(exitGameButton);
 
-        setContentPane(mainPanel);
+        setContentPane(DisplaySettings.ColorBlindnessFilter.filtered(mainPanel));
     }
 
     private void updateVisiblePlayers() {
         int count = Integer.parseInt((String) playerCountDropdown.getSelectedItem());
-        for (int i = 0; i < 4; i++) {
+        for (int i = 0; i < playerPanels.length; i++) {
             if (playerPanels[i] != null) {
                 playerPanels[i].setVisible(i < count);
             }
@@ -109,19 +124,17 @@ public class KiviGame extends JFrame {
         int panelWidth = 150;
         int panelHeight = 210;
         int spacing = 20;
-        int totalWidth = (panelWidth * 4) + (spacing * 3);
+        int perRow = 4;
+        int totalWidth = (panelWidth * perRow) + (spacing * (perRow - 1));
         int startX = (800 - totalWidth) / 2;
-        int yPosition = 220;
+        int startY = 220;
 
-        Color[] defaultColors = {
-                new Color(30, 144, 255),
-                new Color(220, 20, 60),
-                new Color(50, 205, 50),
-                new Color(255, 165, 0)
-        };
+        // Players 5-8 go in a second row
+        String[] defaultColors = { "Blue", "Red", "Green", "Orange", "Purple", "Black", "Teal", "Brown" };
 
-        for (int i = 0; i < 4; i++) {
-            int xPosition = startX + (i * (panelWidth + spacing));
+        for (int i = 0; i < playerPanels.length; i++) {
+            int xPosition = startX + ((i % perRow) * (panelWidth + spacing));
+            int yPosition = startY + ((i / perRow) * (panelHeight + spacing));
             playerPanels[i] = new JPanel(null);
             playerPanels[i].setBounds(xPosition, yPosition, panelWidth, panelHeight);
             playerPanels[i].setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
@@ -132,7 +145,7 @@ public class KiviGame extends JFrame {
             playerLabel.setBorder(BorderFactory.createLineBorder(Color.BLACK));
             playerPanels[i].add(playerLabel);
 
-            bobbleheads[i] = new BobbleheadPanel(i, defaultColors[i]);
+            bobbleheads[i] = new BobbleheadPanel(i, getColorFromName(defaultColors[i]));
             bobbleheads[i].setBounds(25, 35, 100, 100);
             playerPanels[i].add(bobbleheads[i]);
 
@@ -151,17 +164,10 @@ public class KiviGame extends JFrame {
             cpuCheckboxes[i].setBounds(80, 175, 70, 20);
             playerPanels[i].add(cpuCheckboxes[i]);
 
-            colorDropdowns[i] = new JComboBox<>(new String[] { "Blue", "Red", "Green", "Orange", "Purple", "Black" });
-            if (i == 0)
-                colorDropdowns[i].setSelectedItem("Blue");
-            else if (i == 1)
-                colorDropdowns[i].setSelectedItem("Red");
-            else if (i == 2)
-                colorDropdowns[i].setSelectedItem("Green");
-            else if (i == 3)
-                colorDropdowns[i].setSelectedItem("Orange");
+            colorDropdowns[i] = new JComboBox<>(defaultColors);
+            colorDropdowns[i].setSelectedItem(defaultColors[i]);
 
-            difficultyDropdowns[i] = new JComboBox<>(new String[] { "Easy", "Hard" });
+            difficultyDropdowns[i] = new JComboBox<>(CpuStrategy.DIFFICULTIES);
 
             if (i == 0) {
                 humanCheckboxes[i].setSelected(true);
@@ -193,16 +199,20 @@ public class KiviGame extends JFrame {
         String[] playerNames = new String[playerCount];
         Color[] playerColors = new Color[playerCount];
         boolean[] isHuman = new boolean[playerCount];
+        String[] difficulties = new String[playerCount];
 
         for (int i = 0; i < playerCount; i++) {
             playerNames[i] = playerNameFields[i].getText();
             isHuman[i] = humanCheckboxes[i].isSelected();
+            difficulties[i] = (String) difficultyDropdowns[i].getSelectedItem();
             String colorName = (String) colorDropdowns[i].getSelectedItem();
             playerColors[i] = getColorFromName(colorName);
         }
 
         String timeString = (String) timerDropdown.getSelectedItem();
         int turnTime = Integer.parseInt(timeString.split(" ")[0]);
+        String boardString = (String) boardSizeDropdown.getSelectedItem();
+        int boardSize = Integer.parseInt(boardString.split("×")[0]);
 
         try {
             UIManager.setLookAndFeel("javax.swing.plaf.metal.MetalLookAndFeel");
@@ -210,7 +220,55 @@ public class KiviGame extends JFrame {
             ex.printStackTrace();
         }
 
-        SwingUtilities.invokeLater(() -> new KiviGameplay(playerCount, playerNames, playerColors, isHuman, turnTime));
+        if (boardSize == BoardRules.standard().getBoardSize()) {
+            SwingUtilities.invokeLater(() -> new KiviGameplay(playerCount, playerNames, playerColors, isHuman,
+                    difficulties, turnTime));
+        } else {
+            SwingUtilities.invokeLater(() -> new KiviGameplay(playerCount, playerNames, playerColors, isHuman,
+                    difficulties, turnTime, BoardRules.standard(boardSize)));
+        }
+        this.setVisible(false);
+    }
+
+    // Host a game server on this machine (loopback) for online tables
+    private void hostOnlineServer() {
+        if (onlineServer != null) {
+            JOptionPane.showMessageDialog(this, "Server already running on port " + onlineServer.getPort() + ".");
+            return;
+        }
+        String port = JOptionPane.showInputDialog(this, "Port to host the game server on:",
+                String.valueOf(KiviServer.DEFAULT_PORT));
+        if (port == null) {
+            return;
+        }
+        try {
+            onlineServer = new KiviServer(new java.net.InetSocketAddress(
+                    java.net.InetAddress.getLoopbackAddress(), Integer.parseInt(port.trim())));
+            onlineServer.start();
+            JOptionPane.showMessageDialog(this, "Kivi server running on 127.0.0.1:" + onlineServer.getPort() + ".");
+        } catch (NumberFormatException | java.io.IOException ex) {
+            onlineServer = null;
+            JOptionPane.showMessageDialog(this, "Could not start the server: " + ex.getMessage(),
+                    "Online Multiplayer", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void loadGame() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Load Game");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        GameSave save;
+        try {
+            save = GameSave.load(chooser.getSelectedFile().toPath());
+        } catch (java.io.IOException ex) {
+            JOptionPane.showMessageDialog(this, "Could not load the game: " + ex.getMessage(),
+                    "Load Game", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        SwingUtilities.invokeLater(() -> new KiviGameplay(save));
         this.setVisible(false);
     }
 
@@ -228,6 +286,10 @@ public class KiviGame extends JFrame {
                 return new Color(128, 0, 128);
             case "Black":
                 return Color.BLACK;
+            case "Teal":
+                return new Color(0, 128, 128);
+            case "Brown":
+                return new Color(139, 69, 19);
             default:
                 return Color.BLUE;
         }
@@ -276,11 +338,18 @@ public class KiviGame extends JFrame {
         new DisplaySettings();
     }
 
+    // Java has no generic array creation; the array starts empty and only
+    // ever holds JComboBox<String>
+    @SuppressWarnings("unchecked")
+    private static JComboBox<String>[] newDropdowns(int count) {
+        return (JComboBox<String>[]) new JComboBox<?>[count];
+    }
+
     private void startBobbleheadAnimation() {
         animationTimer = new Timer(50, e -> {
             for (BobbleheadPanel bobblehead : bobbleheads) {
-                if (bobblehead != null && bobblehead.isVisible()) {
-                    bobblehead.updateAnimation();
+                // Only repaint when the figure moved to a new sprite
+                if (bobblehead != null && bobblehead.isVisible() && bobblehead.updateAnimation()) {
                     bobblehead.repaint();
                 }
             }
@@ -316,7 +385,8 @@ public class KiviGame extends JFrame {
         textArea.setText(
                 "Kivi draws inspiration from the classic dice game Yachtzee. The game combines\n"
                         + "Yachtzee's dice with a 7×7 board of 49 squares. Each player has ten stones.\n"
-                        + "Unlike Yachtzee (5 dice), Kivi uses 6 dice.\n\n"
+                        + "Unlike Yachtzee (5 dice), Kivi uses 6 dice. Larger boards (up to 15×15) repeat\n"
+                        + "the 7×7 layout, and 2 to 8 players can take part.\n\n"
                         + "On a turn, a player rolls all 6 dice (with up to two partial or full rethrows)\n"
                         + "and must place a stone on a square matching the final dice combination.\n"
                         + "Squares have different colors:\n"
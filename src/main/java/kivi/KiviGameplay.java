@@ -0,0 +1,880 @@
+package kivi;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+
+public class KiviGameplay extends JFrame {
+    // Game board components
+    private JPanel content; // filtered as a whole in full-frame color mode
+    private BoardCanvas gameBoard;
+    private JPanel dicePanel;
+    private JButton[] dice;
+    private JButton rollDiceButton, endTurnButton;
+    private JButton pauseButton, resumeButton, saveButton; // Added saveButton
+    private JPanel playerInfoPanel;
+    private PlayerInfoModel playerInfo; // the rows below the timer follow this model
+    private JLabel currentPlayerLabel;
+    private TurnClockLabel timerLabel;
+    private HintPanel hintPanel;
+
+    // Game state variables (board, stones, scores and turn live in the engine)
+    private GameEngine engine;
+    private int playerCount;
+    private String[] playerNames;
+    private Color[] playerColors;
+    private boolean[] isHuman;
+    private String[] difficulties;
+    private int turnTimeTotal; // total time for a turn in seconds
+
+    // Every change to the game runs as a message on this loop. The fields
+    // below up to the Swing-only ones are touched on the loop thread only.
+    private final GameLoop loop = new GameLoop();
+    private final GameEventBus events = new GameEventBus(loop); // the engine publishes every change here
+    private static final long CPU_STEP_DELAY_MS = 1000; // gives the human a moment to follow each CPU action
+
+    // CPU players think here, not on the loop thread that every open game shares
+    // (an Expert search takes up to a second); idle threads go away after a minute
+    private static final ExecutorService CPU_THINKERS = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "kivi-cpu");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int turnNumber; // bumped every turn, so messages for an old turn are ignored
+    private final GameClock clock; // turn time and time banks, paused with the game
+    private ScheduledFuture<?> timeoutTask;
+    private ScheduledFuture<?> cpuTask;
+    private Runnable cpuStep; // next step of a CPU turn, kept while paused
+    private GameSave save; // once saved, every action is appended to its journal
+    private GameReplay replay; // seed and decisions of a new game, flushed every turn
+
+    // *** DICE LOGIC EXTRACTED TO A NEW CLASS! ***
+    private RollADice diceLogic;
+
+    // *** NEW CLASS for piece placement logic ***
+    private PlaceAPiece placeLogic;
+
+    // Decision logic for each CPU player (null for humans)
+    private CpuStrategy[] cpuStrategies;
+
+    // Pause flag
+    private boolean isPaused = false;
+
+    // Suggests moves to human players while "Show hints" is ticked
+    private MoveAdvisor advisor;
+    private boolean showHints;
+
+    // Swing-only state from here on
+
+    private int displayedTurn; // the turn the controls currently belong to
+    private Path savePath; // the game's save file, once chosen
+
+    public KiviGameplay(int playerCount, String[] playerNames, Color[] playerColors, boolean[] isHuman, int turnTime) {
+        this(playerCount, playerNames, playerColors, isHuman, new String[playerCount], turnTime);
+    }
+
+    public KiviGameplay(int playerCount, String[] playerNames, Color[] playerColors, boolean[] isHuman,
+            String[] difficulties, int turnTime) {
+        this(playerCount, playerNames, playerColors, isHuman, difficulties, turnTime, newRules());
+    }
+
+    /**
+     * A new game on the board defined by 'rules', e.g. a larger one.
+     */
+    public KiviGameplay(int playerCount, String[] playerNames, Color[] playerColors, boolean[] isHuman,
+            String[] difficulties, int turnTime, BoardRules rules) {
+        this(new GameEngine(rules, playerCount, newDice()), null,
+                playerNames, playerColors, isHuman, difficulties, turnTime);
+    }
+
+    /**
+     * Continue a loaded game; its save file keeps recording from here.
+     */
+    public KiviGameplay(GameSave save) {
+        this(save.getEngine(), save, save.getPlayerNames(), save.getPlayerColors(), save.getIsHuman(),
+                save.getDifficulties(), save.getTurnTime());
+    }
+
+    private KiviGameplay(GameEngine engine, GameSave save, String[] playerNames, Color[] playerColors,
+            boolean[] isHuman, String[] difficulties, int turnTime) {
+        super("KIVI - Game");
+        this.engine = engine;
+        this.save = save;
+        this.playerCount = engine.getState().getPlayerCount();
+        this.playerNames = playerNames;
+        this.playerColors = playerColors;
+        this.isHuman = isHuman;
+        this.difficulties = difficulties;
+        this.turnTimeTotal = turnTime;
+        this.clock = newClock(playerCount, turnTime);
+        this.savePath = save == null ? null : save.getPath();
+
+        cpuStrategies = new CpuStrategy[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            if (!isHuman[i]) {
+                cpuStrategies[i] = CpuStrategy.forDifficulty(difficulties[i]);
+            }
+        }
+
+        // Instantiate dice logic
+        diceLogic = engine.getDiceLogic();
+
+        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setSize(900, 700);
+        content = new JPanel(new BorderLayout(10, 10));
+        setContentPane(DisplaySettings.ColorBlindnessFilter.filtered(content));
+
+        createGameBoard();
+        createDicePanel();
+        createPlayerInfoPanel();
+
+        // Instantiate piece placement logic AFTER the board is ready
+        placeLogic = new PlaceAPiece(engine);
+        subscribeEvents();
+        engine.setEvents(events);
+
+        // From here on the engine belongs to the loop thread
+        if (save == null) {
+            loop.post(this::startGame);
+        } else {
+            showCommittedStones();
+            long allowanceMillis = save.getAllowanceMillis();
+            long[] bankMillis = save.getBankMillis();
+            loop.post(() -> resumeTurn(allowanceMillis, bankMillis));
+        }
+
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    private void createGameBoard() {
+        gameBoard = new BoardCanvas(engine, playerColors);
+        gameBoard.setSquareListener((row, col) -> loop.post(() -> clickSquare(row, col)));
+        content.add(gameBoard, BorderLayout.CENTER);
+    }
+
+    private void createDicePanel() {
+        dicePanel = new JPanel(new FlowLayout());
+
+        dice = new JButton[6];
+        for (int i = 0; i < 6; i++) {
+            dice[i] = new JButton("?");
+            dice[i].setPreferredSize(new Dimension(60, 60));
+            dice[i].setFont(new Font("Arial", Font.BOLD, 20));
+            final int dieIndex = i;
+
+            // Toggling a die means we call diceLogic.toggleDieSelection() + UI update
+            dice[i].addActionListener(e -> loop.post(() -> {
+                if (isHumanTurn()) {
+                    toggleDieSelection(dieIndex);
+                }
+            }));
+            dicePanel.add(dice[i]);
+        }
+
+        rollDiceButton = new JButton("Roll Dice");
+        rollDiceButton.addActionListener(e -> loop.post(() -> {
+            if (isHumanTurn()) {
+                rollDice();
+            }
+        }));
+        dicePanel.add(rollDiceButton);
+
+        endTurnButton = new JButton("End Turn");
+        endTurnButton.setEnabled(false);
+        endTurnButton.addActionListener(e -> {
+            int turn = displayedTurn;
+            loop.post(() -> {
+                if (isHumanTurn()) {
+                    endTurn(turn);
+                }
+            });
+        });
+        dicePanel.add(endTurnButton);
+
+        pauseButton = new JButton("Pause");
+        pauseButton.addActionListener(e -> loop.post(this::pauseGame));
+        dicePanel.add(pauseButton);
+
+        resumeButton = new JButton("Resume");
+        resumeButton.addActionListener(e -> loop.post(this::resumeGame));
+        resumeButton.setEnabled(false);
+        dicePanel.add(resumeButton);
+
+        // Add the "Save" button
+        saveButton = new JButton("Save");
+        saveButton.addActionListener(e -> saveGame());
+        dicePanel.add(saveButton);
+
+        content.add(dicePanel, BorderLayout.SOUTH);
+    }
+
+    private void createPlayerInfoPanel() {
+        playerInfoPanel = new JPanel();
+        playerInfoPanel.setLayout(new BoxLayout(playerInfoPanel, BoxLayout.Y_AXIS));
+        playerInfoPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        currentPlayerLabel = new JLabel("Current Player: " + playerNames[engine.getCurrentPlayer()]);
+        currentPlayerLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        playerInfoPanel.add(currentPlayerLabel);
+
+        playerInfoPanel.add(Box.createVerticalStrut(10));
+
+        // Initially show the total time for the turn.
+        timerLabel = new TurnClockLabel(turnTimeTotal, new Font("Arial", Font.PLAIN, 14));
+        playerInfoPanel.add(timerLabel);
+
+        playerInfoPanel.add(Box.createVerticalStrut(20));
+
+        // One row per player, built once and updated through the model
+        playerInfo = new PlayerInfoModel(playerNames, playerColors);
+        GameState state = engine.getState();
+        updatePlayerStats(getStonesLeft(state), state.getScores());
+        playerInfoPanel.add(new PlayerInfoPanel(playerInfo));
+
+        playerInfoPanel.add(Box.createVerticalStrut(20));
+
+        // Hints are worked out in the background for the human's roll
+        hintPanel = new HintPanel(engine);
+        advisor = new MoveAdvisor(hintPanel);
+        JCheckBox hintsBox = new JCheckBox("Show hints");
+        hintsBox.setAlignmentX(Component.LEFT_ALIGNMENT);
+        hintsBox.addActionListener(e -> {
+            boolean selected = hintsBox.isSelected();
+            if (!selected) {
+                advisor.cancel(); // also drops advice already on its way here
+                hintPanel.clear();
+            }
+            loop.post(() -> setShowHints(selected));
+        });
+        playerInfoPanel.add(hintsBox);
+        playerInfoPanel.add(hintPanel);
+
+        content.add(playerInfoPanel, BorderLayout.EAST);
+    }
+
+    // The save journal follows the game on the loop thread; the controls
+    // and the board follow it on the Swing thread, once per frame at most
+    private void subscribeEvents() {
+        events.subscribe(GameEvent.class, this::journal);
+        events.subscribe(GameEvent.DiceRolled.class, rolled -> adviseHuman());
+        events.subscribe(GameEvent.DieToggled.class, toggled -> adviseHuman());
+        events.subscribe(GameEvent.TurnEnded.class, ended -> advisor.cancel());
+
+        events.subscribeUi(GameEvent.DiceRolled.class, rolled -> {
+            updateDiceUI(rolled);
+            showPendingStone(-1, rolled.getPlayer()); // rolling takes the stone back
+        });
+        events.subscribeUi(GameEvent.DieToggled.class, this::updateDiceUI);
+        events.subscribeUi(GameEvent.StonePlaced.class, placed -> {
+            showPendingStone(placed.getSquare(), placed.getPlayer());
+            endTurnButton.setEnabled(isHuman[placed.getPlayer()]);
+        });
+        events.subscribeUi(GameEvent.TurnEnded.class, ended -> {
+            showTurnEnd();
+            updatePlayerStats(ended.getStonesLeft(), ended.getScores());
+        });
+        events.subscribeUi(GameEvent.GameOver.class, over -> endGame(over.getScores()));
+    }
+
+    // -------------------- Game loop (loop thread only) --------------------
+
+    private void startGame() {
+        engine.getState().reset();
+        startRecording();
+        startTurn();
+    }
+
+    // Log the game for GameReplay if the kivi.replayDir system property names a
+    // directory, which keeps the newest kivi.replayLimit logs (100 by default);
+    // a game that can't be logged is still played
+    private void startRecording() {
+        Path directory = GameReplay.getRecordingDirectory();
+        if (directory == null) {
+            return;
+        }
+        long seed = diceLogic.getSeed();
+        Path path = directory.resolve("game-" + System.currentTimeMillis() + "-" + Long.toHexString(seed) + ".kivr");
+        try {
+            GameReplay.prune(directory, Integer.getInteger("kivi.replayLimit", 100) - 1);
+            replay = GameReplay.create(path, seed, engine.getRules(), playerCount);
+            engine.setReplay(replay);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Starts a turn by resetting dice, scheduling its timeout and, for a CPU, its first step
+    private void startTurn() {
+        turnNumber++;
+
+        // Reset dice logic for new turn
+        engine.startTurn();
+        int currentPlayer = engine.getCurrentPlayer();
+        long now = System.nanoTime();
+        clock.startTurn(currentPlayer, now);
+
+        int turn = turnNumber;
+        long deadline = clock.getDeadline(now);
+        loop.ui(() -> showTurnStart(turn, currentPlayer, deadline));
+
+        scheduleTimeout();
+        if (!isHuman[currentPlayer]) {
+            scheduleCpuStep(this::cpuRoll);
+        }
+    }
+
+    // Picks up a loaded game mid-turn, with the time that was left in it and
+    // the saved time banks (null for old saves: those keep the initial bank)
+    private void resumeTurn(long allowanceMillis, long[] bankMillis) {
+        if (engine.isGameOver()) {
+            int[] scores = engine.getState().getScores();
+            loop.ui(() -> endGame(scores));
+            closeSave();
+            loop.close();
+            return;
+        }
+        turnNumber++;
+        int currentPlayer = engine.getCurrentPlayer();
+        if (bankMillis != null) {
+            for (int i = 0; i < playerCount; i++) {
+                clock.setBankNanos(i, bankMillis[i] * 1_000_000L);
+            }
+        }
+        // Old saves counted the bank in; never more than a whole turn
+        long allowance = Math.min(allowanceMillis, turnTimeTotal * 1000L);
+        long now = System.nanoTime();
+        clock.startTurn(currentPlayer, allowance * 1_000_000L, now);
+
+        int turn = turnNumber;
+        long deadline = clock.getDeadline(now);
+        loop.ui(() -> showTurnStart(turn, currentPlayer, deadline));
+        publishDice();
+
+        scheduleTimeout();
+        if (!isHuman[currentPlayer]) {
+            scheduleCpuStep(diceLogic.getRollCount() == 0 ? this::cpuRoll : this::cpuDecide);
+        }
+    }
+
+    private boolean isHumanTurn() {
+        return !isPaused && isHuman[engine.getCurrentPlayer()];
+    }
+
+    private void setShowHints(boolean show) {
+        showHints = show;
+        if (show) {
+            adviseHuman();
+        } else {
+            advisor.cancel();
+        }
+    }
+
+    // Fresh advice after every roll and toggle of a human player; the
+    // advisor drops whatever it was still working on
+    private void adviseHuman() {
+        if (showHints && isHumanTurn() && diceLogic.getRollCount() > 0) {
+            advisor.request(engine);
+        }
+    }
+
+    private void rollDice() {
+        // Ask the engine to do the actual rolling (this takes back a placed stone)
+        engine.rollDice();
+    }
+
+    private void toggleDieSelection(int dieIndex) {
+        if (diceLogic.getRollCount() == 0) {
+            // Can't toggle if we haven't rolled
+            return;
+        }
+
+        // Toggle the selection in the engine
+        engine.toggleDieSelection(dieIndex);
+    }
+
+    private void clickSquare(int row, int col) {
+        // If it's not the player's turn or no roll has happened, skip
+        if (!isHumanTurn() || diceLogic.getRollCount() == 0) {
+            return;
+        }
+
+        // Attempt placement with the selected dice via PlaceAPiece
+        String error = placeLogic.attemptPlacePiece(row, col, diceLogic.getKeptHistogram());
+        if (error != null) {
+            loop.ui(() -> JOptionPane.showMessageDialog(this, error));
+        }
+    }
+
+    // Hand the dice, legal squares and tentative stone of a loaded turn to the UI
+    private void publishDice() {
+        int player = engine.getCurrentPlayer();
+        GameEvent.DiceEvent dice = new GameEvent.DieToggled(player, -1, diceLogic.getDiceValues(),
+                diceLogic.getKeepMask(), diceLogic.getRollCount(), engine.getValidSquares());
+        int square = engine.getPendingSquare();
+        loop.ui(() -> {
+            updateDiceUI(dice);
+            showPendingStone(square, player);
+        });
+    }
+
+    // Ends the given turn; ignored if that turn is already over
+    private void endTurn(int turn) {
+        if (turn != turnNumber || isPaused) {
+            return;
+        }
+        cancelTasks();
+        clock.endTurn(System.nanoTime());
+
+        // Commit the placed piece (if any) and pass the turn in the engine;
+        // the journal and the UI follow its events
+        engine.endTurn();
+        if (engine.isGameOver()) {
+            closeSave();
+            closeReplay();
+            loop.close();
+            return;
+        }
+        startTurn();
+    }
+
+    private void scheduleTimeout() {
+        int turn = turnNumber;
+        timeoutTask = loop.schedule(() -> timeout(turn), remainingTurnMillis());
+    }
+
+    // The clock reports a turn's timeout only once; if the task fired
+    // before the time was really up, wait for the rest
+    private void timeout(int turn) {
+        if (turn != turnNumber || isPaused) {
+            return;
+        }
+        if (clock.expire(System.nanoTime())) {
+            endTurn(turn);
+        } else {
+            scheduleTimeout();
+        }
+    }
+
+    // Run the next step of a CPU turn after the usual delay
+    private void scheduleCpuStep(Runnable step) {
+        cpuStep = step;
+        cpuTask = loop.schedule(() -> {
+            if (cpuStep == step) {
+                cpuStep = null;
+                step.run();
+            }
+        }, CPU_STEP_DELAY_MS);
+    }
+
+    private void cancelTasks() {
+        if (timeoutTask != null) {
+            timeoutTask.cancel(false);
+            timeoutTask = null;
+        }
+        if (cpuTask != null) {
+            cpuTask.cancel(false);
+            cpuTask = null;
+        }
+        cpuStep = null;
+    }
+
+    private void cpuRoll() {
+        rollDice();
+        scheduleCpuStep(this::cpuDecide);
+    }
+
+    // Let the strategy keep dice and reroll until it decides to place. It
+    // decides on a copy of the game off the loop and posts the decision back
+    private void cpuDecide() {
+        CpuStrategy strategy = cpuStrategies[engine.getCurrentPlayer()];
+        GameEngine snapshot = engine.snapshot();
+        int turn = turnNumber;
+        CPU_THINKERS.execute(() -> {
+            int decision = strategy.decide(snapshot);
+            loop.post(() -> cpuDecided(turn, decision));
+        });
+    }
+
+    // Ignored if the turn ran out meanwhile; kept for later if the game was paused
+    private void cpuDecided(int turn, int decision) {
+        if (turn != turnNumber) {
+            return;
+        }
+        if (isPaused) {
+            cpuStep = () -> cpuDecided(turn, decision);
+            return;
+        }
+        engine.setKeepMask(CpuStrategy.getKeepMask(decision)); // shown through its DieToggled
+
+        if (CpuStrategy.isReroll(decision) && diceLogic.getRollCount() < RollADice.MAX_ROLLS) {
+            scheduleCpuStep(this::cpuRoll);
+            return;
+        }
+        int square = CpuStrategy.isReroll(decision) ? -1 : CpuStrategy.getSquare(decision);
+        if (square >= 0) {
+            scheduleCpuStep(() -> cpuPlace(square));
+        } else {
+            scheduleCpuStep(() -> endTurn(turnNumber));
+        }
+    }
+
+    private void cpuPlace(int square) {
+        engine.placeStone(square);
+        scheduleCpuStep(() -> endTurn(turnNumber));
+    }
+
+    private void pauseGame() {
+        if (!isPaused) {
+            isPaused = true;
+            // Stop the clock and the CPU, but remember the CPU's next step
+            Runnable pendingStep = cpuStep;
+            cancelTasks();
+            cpuStep = pendingStep;
+            long now = System.nanoTime();
+            clock.pause(now);
+            advisor.cancel();
+
+            long remaining = clock.getRemainingNanos(now);
+            int rollCount = diceLogic.getRollCount();
+            boolean stonePlaced = engine.getPendingSquare() >= 0;
+            loop.ui(() -> {
+                timerLabel.stop(remaining);
+                hintPanel.clear();
+                setGameControlButtonsEnabled(false, rollCount, stonePlaced);
+                pauseButton.setEnabled(false);
+                resumeButton.setEnabled(true);
+            });
+            System.out.println("Game paused.");
+        }
+    }
+
+    private void resumeGame() {
+        if (isPaused) {
+            isPaused = false;
+            // The paused time is not the player's: the deadline moves with it
+            long now = System.nanoTime();
+            clock.resume(now);
+            long deadline = clock.getDeadline(now);
+            scheduleTimeout();
+            if (cpuStep != null) {
+                scheduleCpuStep(cpuStep);
+            }
+            adviseHuman();
+
+            boolean humanTurn = isHuman[engine.getCurrentPlayer()];
+            int rollCount = diceLogic.getRollCount();
+            boolean stonePlaced = engine.getPendingSquare() >= 0;
+            loop.ui(() -> {
+                timerLabel.start(deadline);
+                setGameControlButtonsEnabled(humanTurn, rollCount, stonePlaced);
+                pauseButton.setEnabled(true);
+                resumeButton.setEnabled(false);
+            });
+            System.out.println("Game resumed.");
+        }
+    }
+
+    // Snapshot the game to its save file
+    private void saveGame(Path path) {
+        try {
+            if (save == null) {
+                save = GameSave.create(path, playerNames, playerColors, isHuman, difficulties, turnTimeTotal,
+                        engine, allowanceMillis(), bankMillis());
+            } else {
+                save.snapshot(engine, allowanceMillis(), bankMillis());
+            }
+            loop.ui(() -> saveButton.setToolTipText("Saved to " + path));
+        } catch (IOException e) {
+            stopSaving(e);
+        }
+    }
+
+    // Append each action to the save journal and flush the replay every turn
+    private void journal(GameEvent event) {
+        try {
+            if (save != null) {
+                long allowance = allowanceMillis();
+                if (event instanceof GameEvent.DiceRolled) {
+                    save.logRoll(((GameEvent.DiceRolled) event).getValues(), allowance);
+                } else if (event instanceof GameEvent.DieToggled) {
+                    GameEvent.DieToggled toggled = (GameEvent.DieToggled) event;
+                    if (toggled.getDie() >= 0) {
+                        save.logToggle(toggled.getDie(), allowance);
+                    } else {
+                        save.logKeep(toggled.getKeepMask(), allowance);
+                    }
+                } else if (event instanceof GameEvent.StonePlaced) {
+                    save.logPlace(((GameEvent.StonePlaced) event).getSquare(), allowance);
+                } else if (event instanceof GameEvent.TurnEnded) {
+                    // The clock has already settled the turn's bank
+                    save.logEndTurn(clock.getBankNanos(event.getPlayer()) / 1_000_000);
+                }
+            }
+        } catch (IOException e) {
+            stopSaving(e);
+        }
+        if (event instanceof GameEvent.TurnEnded && replay != null) {
+            try {
+                replay.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+                closeReplay();
+            }
+        }
+    }
+
+    // A save file that can't be written is dropped; the game goes on unsaved
+    private void stopSaving(IOException e) {
+        e.printStackTrace();
+        closeSave();
+        String message = "Saving failed: " + e.getMessage();
+        loop.ui(() -> {
+            savePath = null;
+            JOptionPane.showMessageDialog(this, message, "Save", JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    private void closeReplay() {
+        if (replay != null) {
+            engine.setReplay(null);
+            try {
+                replay.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            replay = null;
+        }
+    }
+
+    private void closeSave() {
+        if (save != null) {
+            try {
+                save.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            save = null;
+        }
+    }
+
+    // Rounded up, so a timeout scheduled with it never fires early
+    private long remainingTurnMillis() {
+        return (clock.getRemainingNanos(System.nanoTime()) + 999_999) / 1_000_000;
+    }
+
+    // The turn's own time left and the time banks, kept apart in the save
+    // file so loading it does not count a bank twice
+    private long allowanceMillis() {
+        return clock.getAllowanceNanos(System.nanoTime()) / 1_000_000;
+    }
+
+    private long[] bankMillis() {
+        long[] banks = new long[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            banks[i] = clock.getBankNanos(i) / 1_000_000;
+        }
+        return banks;
+    }
+
+    // Turn time from the start screen; a time bank and a per-turn increment
+    // (in seconds) can be set with the kivi.timeBank and kivi.timeIncrement
+    // system properties
+    private static GameClock newClock(int playerCount, int turnTime) {
+        long second = 1_000_000_000L;
+        return new GameClock(playerCount, turnTime * second,
+                Long.getLong("kivi.timeBank", 0) * second, Long.getLong("kivi.timeIncrement", 0) * second);
+    }
+
+    // The board defined in the file named by the kivi.board system property, or the standard one
+    private static BoardRules newRules() {
+        String path = System.getProperty("kivi.board");
+        if (path != null) {
+            try {
+                return BoardRules.load(Paths.get(path));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return BoardRules.standard();
+    }
+
+    // Dice from the kivi.seed system property, to reproduce a game, or a fresh seed
+    private static RollADice newDice() {
+        Long seed = Long.getLong("kivi.seed");
+        return seed != null ? new RollADice(seed) : new RollADice();
+    }
+
+    private static int[] getStonesLeft(GameState state) {
+        int[] stonesLeft = new int[state.getPlayerCount()];
+        for (int i = 0; i < stonesLeft.length; i++) {
+            stonesLeft[i] = state.getStonesLeft(i);
+        }
+        return stonesLeft;
+    }
+
+    // -------------------- UI (Swing thread only) --------------------
+
+    // Update player statistics without recreating the time label
+    private void updatePlayerStats(int[] stonesLeft, int[] scores) {
+        // Only the rows whose numbers changed repaint
+        playerInfo.setStats(stonesLeft, scores);
+    }
+
+    // The first save picks the file; later ones compact the same file
+    private void saveGame() {
+        if (savePath == null) {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setDialogTitle("Save Game");
+            if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+                return;
+            }
+            savePath = chooser.getSelectedFile().toPath();
+        }
+        Path path = savePath;
+        loop.post(() -> saveGame(path));
+    }
+
+    // Draw the stones of a loaded game
+    private void showCommittedStones() {
+        GameState state = engine.getState();
+        for (int square = 0; square < state.getSquareCount(); square++) {
+            gameBoard.setStone(square, state.getOwner(square));
+        }
+    }
+
+    private void showTurnStart(int turn, int currentPlayer, long deadline) {
+        displayedTurn = turn;
+
+        // Clear out dice UI
+        for (int i = 0; i < 6; i++) {
+            dice[i].setText("?");
+            dice[i].setBackground(null);
+            dice[i].setEnabled(true);
+        }
+
+        // If a stone was partially placed last turn, remove it
+        showPendingStone(-1, currentPlayer);
+        gameBoard.clearHighlights();
+
+        currentPlayerLabel.setText("Current Player: " + playerNames[currentPlayer]);
+        playerInfo.setActivePlayer(currentPlayer);
+        rollDiceButton.setEnabled(isHuman[currentPlayer]);
+        endTurnButton.setEnabled(false);
+
+        // Count down to the loop's deadline; the loop ends the turn itself
+        timerLabel.start(deadline);
+    }
+
+    private void showTurnEnd() {
+        timerLabel.stop();
+        hintPanel.clear();
+
+        // The committed stone stays where it is
+        gameBoard.commitPendingStone();
+
+        // Disable dice
+        for (int i = 0; i < 6; i++) {
+            dice[i].setEnabled(false);
+        }
+        rollDiceButton.setEnabled(false);
+        endTurnButton.setEnabled(false);
+    }
+
+    /**
+     * Update the dice buttons and the legal squares to match a dice event.
+     * This method is called after rolling or toggling a die.
+     */
+    private void updateDiceUI(GameEvent.DiceEvent diceEvent) {
+        int rollCount = diceEvent.getRollCount();
+        int currentPlayer = diceEvent.getPlayer();
+        for (int i = 0; i < 6; i++) {
+            // If dice haven't been rolled yet, show "?"
+            if (diceEvent.getValue(i) == 0 && rollCount == 0) {
+                dice[i].setText("?");
+            } else {
+                dice[i].setText(String.valueOf(diceEvent.getValue(i)));
+            }
+            // Color background if selected
+            if ((diceEvent.getKeepMask() & (1 << i)) != 0) {
+                dice[i].setBackground(playerColors[currentPlayer]);
+            } else {
+                dice[i].setBackground(null);
+            }
+            // If we've rolled 3 times, disable dice from toggling
+            dice[i].setEnabled(rollCount > 0 && rollCount < 3);
+        }
+        // If we've rolled 3 times, disable rollDice
+        rollDiceButton.setEnabled(isHuman[currentPlayer] && rollCount < 3);
+        highlightValidMoves(diceEvent.getValidSquares());
+    }
+
+    private void highlightValidMoves(long[] validSquares) {
+        // Highlight every free square the selected dice fit (none before
+        // the first roll); only squares that change are repainted
+        gameBoard.setHighlights(validSquares);
+    }
+
+    // Show this turn's stone on 'square', or take it off the board for -1
+    private void showPendingStone(int square, int currentPlayer) {
+        gameBoard.setPendingStone(square, currentPlayer);
+    }
+
+    private void endGame(int[] scores) {
+        int maxScore = -1;
+        int winner = -1;
+        for (int i = 0; i < playerCount; i++) {
+            if (scores[i] > maxScore) {
+                maxScore = scores[i];
+                winner = i;
+            }
+        }
+        StringBuilder message = new StringBuilder();
+        message.append("Game Over!\n\n");
+        message.append("Final Scores:\n");
+        for (int i = 0; i < playerCount; i++) {
+            message.append(playerNames[i]).append(": ").append(scores[i]).append(" points\n");
+        }
+        message.append("\nWinner: ").append(playerNames[winner]).append("!");
+        JOptionPane.showMessageDialog(this, message.toString(), "Game Over", JOptionPane.INFORMATION_MESSAGE);
+        dispose();
+    }
+
+    private void setGameControlButtonsEnabled(boolean enabled, int rollCount, boolean stonePlaced) {
+        for (JButton d : dice) {
+            d.setEnabled(enabled && rollCount < 3 && rollCount > 0);
+        }
+        rollDiceButton.setEnabled(enabled && rollCount < 3);
+        endTurnButton.setEnabled(enabled && stonePlaced);
+    }
+
+    @Override
+    public void dispose() {
+        timerLabel.stop();
+        // Not through the loop, which is already closed once the game is over
+        advisor.close();
+        // Drop this game's pending CPU steps and timeout
+        loop.post(() -> {
+            cancelTasks();
+            closeSave();
+            closeReplay();
+            loop.close();
+        });
+        super.dispose();
+    }
+
+    // Test main (optional)
+    public static void main(String[] args) {
+        String[] names = { "Player 1", "CPU" };
+        Color[] colors = { new Color(30, 144, 255), new Color(220, 20, 60) };
+        boolean[] human = { true, false };
+        SwingUtilities.invokeLater(() -> new KiviGameplay(2, names, colors, human, 30));
+    }
+}
@@ -0,0 +1,278 @@
+package kivi;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loopback load test for KiviServer: opens one connection per seat for N
+ * games at once, all driven by simple bots from a single selector thread.
+ * Each bot mirrors the board from the server's messages and places on the
+ * first legal square it finds, rerolling everything otherwise.
+ * Reports how long the games took and the server's heap use per connection.
+ *
+ * Usage: java kivi.KiviLoadTest [--games N] [--seats S] [--players P] [--spectators K]
+ *                               [--port P] [--backfill-ms M]
+ * --spectators opens K more connections once every player is seated, each
+ * following one of the games (round robin) until it ends.
+ * --players overrides games x seats; players left over once the tables are
+ * full get CPU opponents after the backfill wait. Without --port an
+ * in-process server is started on a free loopback port.
+ */
+public class KiviLoadTest {
+    private static final BoardRules RULES = BoardRules.standard(); // 7x7: one bitboard word
+
+    private final List<Integer> gameIds = new ArrayList<>();
+    private int seatedPlayers;
+    private int completedGames;
+    private int errors;
+    private int snapshots;
+    private int missedGames; // over before the spectator got there
+    private long spectatorBytes;
+
+    /**
+     * One bot player (or spectator) on its own connection.
+     */
+    private class Bot {
+        final SocketChannel channel;
+        final boolean spectator;
+        final ByteBuffer in = ByteBuffer.allocate(512);
+        final ByteBuffer out = ByteBuffer.allocate(512);
+        final int[] values = new int[6];
+        int seat = -1;
+        long occupied;
+        boolean done;
+
+        Bot(SocketChannel channel, boolean spectator) {
+            this.channel = channel;
+            this.spectator = spectator;
+        }
+
+        void read() throws IOException {
+            int bytes = channel.read(in);
+            if (bytes < 0) {
+                done = true;
+                return;
+            }
+            if (spectator) {
+                spectatorBytes += bytes;
+            }
+            in.flip();
+            int length;
+            while ((length = KiviProtocol.frameLength(in)) >= 0) {
+                int end = in.position() + length;
+                in.position(in.position() + 2);
+                handle(in.get());
+                in.position(end);
+            }
+            in.compact();
+            flush();
+        }
+
+        void handle(byte type) {
+            switch (type) {
+                case KiviProtocol.JOINED: {
+                    int gameId = in.getInt();
+                    seat = in.get();
+                    if (seat == 0) {
+                        gameIds.add(gameId);
+                    }
+                    seatedPlayers++;
+                    break;
+                }
+                case KiviProtocol.TURN_STARTED:
+                    if (in.get() == seat) {
+                        KiviProtocol.writeAction(out, KiviProtocol.ROLL);
+                    }
+                    break;
+                case KiviProtocol.ROLLED: {
+                    int player = in.get();
+                    int rollCount = in.get();
+                    in.get();
+                    for (int i = 0; i < 6; i++) {
+                        values[i] = in.get();
+                    }
+                    if (player == seat) {
+                        play(rollCount);
+                    }
+                    break;
+                }
+                case KiviProtocol.TURN_ENDED: {
+                    in.get();
+                    int square = in.get();
+                    if (square >= 0) {
+                        occupied |= 1L << square;
+                    }
+                    break;
+                }
+                case KiviProtocol.GAME_OVER:
+                    done = true;
+                    completedGames += seat == 0 ? 1 : 0;
+                    break;
+                case KiviProtocol.SNAPSHOT:
+                    snapshots++;
+                    in.position(in.position() + 16); // gameId up to the pending square
+                    done = in.get() == 1;
+                    break;
+                case KiviProtocol.ERROR:
+                    if (spectator && in.get() == KiviProtocol.NO_SUCH_GAME) {
+                        missedGames++;
+                        done = true;
+                    } else {
+                        errors++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // Place on the first legal square for any subset of the dice, else reroll or pass
+        void play(int rollCount) {
+            for (int keepMask = 1; keepMask < (1 << 6); keepMask++) {
+                int index = DiceHistogram.index(DiceHistogram.of(values, keepMask));
+                long valid = RULES.getSquareMask(index)[0] & ~occupied;
+                if (valid != 0) {
+                    for (int die = 0; die < 6; die++) {
+                        if ((keepMask & (1 << die)) != 0) {
+                            KiviProtocol.writeAction(out, KiviProtocol.TOGGLE, die);
+                        }
+                    }
+                    KiviProtocol.writeAction(out, KiviProtocol.PLACE, Long.numberOfTrailingZeros(valid));
+                    KiviProtocol.writeAction(out, KiviProtocol.END_TURN);
+                    return;
+                }
+            }
+            KiviProtocol.writeAction(out, rollCount < RollADice.MAX_ROLLS ? KiviProtocol.ROLL : KiviProtocol.END_TURN);
+        }
+
+        void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            out.clear();
+        }
+    }
+
+    public void run(InetSocketAddress address, int players, int seats, int spectators) throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        Selector selector = Selector.open();
+        Bot[] bots = new Bot[players];
+        long start = System.nanoTime();
+        for (int i = 0; i < bots.length; i++) {
+            bots[i] = connect(selector, address, false);
+            KiviProtocol.writeJoin(bots[i].out, seats);
+            bots[i].flush();
+        }
+        double connectSeconds = (System.nanoTime() - start) / 1e9;
+        System.gc();
+        long heapConnected = runtime.totalMemory() - runtime.freeMemory();
+
+        int open = bots.length;
+        boolean watching = spectators == 0;
+        while (open > 0) {
+            if (!watching && seatedPlayers == players) {
+                watching = true;
+                for (int i = 0; i < spectators; i++) {
+                    Bot spectator = connect(selector, address, true);
+                    KiviProtocol.writeSpectate(spectator.out, gameIds.get(i % gameIds.size()));
+                    spectator.flush();
+                    open++;
+                }
+            }
+            selector.select(1000);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Bot bot = (Bot) key.attachment();
+                bot.read();
+                if (bot.done) {
+                    key.cancel();
+                    bot.channel.close();
+                    open--;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        selector.close();
+
+        System.out.printf("%d players for %d-seat tables: %d connections opened in %.2f s%n",
+                players, seats, bots.length, connectSeconds);
+        System.out.printf("%d games completed in %.2f s (%.0f games/s), %d errors%n",
+                completedGames, seconds, completedGames / seconds, errors);
+        System.out.printf("heap with all connected (bots and in-process server): %.1f KB per connection%n",
+                (heapConnected - heapBefore) / 1024.0 / bots.length);
+        if (spectators > 0) {
+            System.out.printf("%d spectators: %d snapshots, %.1f KB received each, %d games already over%n",
+                    spectators, snapshots, spectatorBytes / 1024.0 / spectators, missedGames);
+        }
+    }
+
+    private Bot connect(Selector selector, InetSocketAddress address, boolean spectator) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        channel.configureBlocking(false);
+        Bot bot = new Bot(channel, spectator);
+        channel.register(selector, SelectionKey.OP_READ, bot);
+        return bot;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = 1000;
+        int seats = 2;
+        int players = -1;
+        int spectators = 0;
+        int port = -1;
+        long backfillMillis = 1000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--games":
+                    games = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seats":
+                    seats = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--players":
+                    players = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--spectators":
+                    spectators = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--backfill-ms":
+                    backfillMillis = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        KiviServer server = null;
+        if (port < 0) {
+            server = new KiviServer(new InetSocketAddress(loopback, 0), backfillMillis, "Easy");
+            server.start();
+            port = server.getPort();
+        }
+        new KiviLoadTest().run(new InetSocketAddress(loopback, port), players < 0 ? games * seats : players, seats,
+                spectators);
+        if (server != null) {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package kivi;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format between KiviServer and its clients. Every message is a frame:
+ * - 2 bytes: length of the rest of the frame (unsigned)
+ * - 1 byte: message type
+ * - the payload, fixed per type (bytes are signed, -1 means "none")
+ * Messages are tiny: a frame is at most MAX_FRAME_BYTES, header included.
+ * The largest, a SNAPSHOT of a 4-seat table, is 80 bytes; the rest are a
+ * dozen or less. So a connection never needs more than a few hundred bytes
+ * of buffer.
+ *
+ * Client to server:
+ * - JOIN seats [rating(short)]: queue for a table of 2-4 players
+ * - ROLL, TOGGLE die, PLACE square, END_TURN: the current player's actions
+ * - SPECTATE gameId(int): follow a running game; the server answers with a
+ *   SNAPSHOT, then the same state changes the players get, sent in batches
+ *
+ * Server to client (state changes are sent to every seat of the table):
+ * - JOINED gameId(int) seat seats
+ * - TURN_STARTED player
+ * - ROLLED player rollCount keepMask value x6
+ * - TOGGLED die keepMask (die -1 when a CPU sets the whole keep mask)
+ * - PLACED square (the tentative stone; -1 when a ROLL takes it back, sent
+ *   before the ROLLED, or alone if no roll was left)
+ * - TURN_ENDED player square points(short) score(short)
+ * - GAME_OVER seats score(short) x seats
+ * - SNAPSHOT gameId(int) seats player rollCount keepMask value x6 pendingSquare
+ *   gameOver score(short) x seats stonesLeft x seats owner x squares
+ *   (a spectator that fell behind skips ahead to a new SNAPSHOT)
+ * - ERROR code
+ */
+public final class KiviProtocol {
+    public static final int HEADER_BYTES = 3;
+    public static final int MAX_FRAME_BYTES = 128;
+
+    // Client to server
+    public static final byte JOIN = 1;
+    public static final byte ROLL = 2;
+    public static final byte TOGGLE = 3;
+    public static final byte PLACE = 4;
+    public static final byte END_TURN = 5;
+    public static final byte SPECTATE = 6;
+
+    // Server to client
+    public static final byte JOINED = 21;
+    public static final byte TURN_STARTED = 22;
+    public static final byte ROLLED = 23;
+    public static final byte TOGGLED = 24;
+    public static final byte PLACED = 25;
+    public static final byte TURN_ENDED = 26;
+    public static final byte GAME_OVER = 27;
+    public static final byte ERROR = 28;
+    public static final byte SNAPSHOT = 29;
+
+    // ERROR codes
+    public static final byte NOT_YOUR_TURN = 1;
+    public static final byte ILLEGAL_MOVE = 2;
+    public static final byte BAD_MESSAGE = 3;
+    public static final byte NO_SUCH_GAME = 4;
+
+    private KiviProtocol() {
+    }
+
+    /**
+     * Start a frame of the given type in 'out'; finish it with endFrame.
+     * Returns the frame's start position.
+     */
+    public static int beginFrame(ByteBuffer out, byte type) {
+        int start = out.position();
+        out.putShort((short) 0).put(type);
+        return start;
+    }
+
+    /**
+     * Fill in the length of the frame started at 'start'.
+     */
+    public static void endFrame(ByteBuffer out, int start) {
+        out.putShort(start, (short) (out.position() - start - 2));
+    }
+
+    /**
+     * Length of the complete frame at the start of 'in' (flipped for reading),
+     * or -1 if more bytes are needed. Does not move the buffer.
+     */
+    public static int frameLength(ByteBuffer in) {
+        if (in.remaining() < 2) {
+            return -1;
+        }
+        int length = 2 + (in.getShort(in.position()) & 0xFFFF);
+        return in.remaining() >= length ? length : -1;
+    }
+
+    public static void writeJoin(ByteBuffer out, int seats) {
+        int start = beginFrame(out, JOIN);
+        out.put((byte) seats);
+        endFrame(out, start);
+    }
+
+    public static void writeJoin(ByteBuffer out, int seats, int rating) {
+        int start = beginFrame(out, JOIN);
+        out.put((byte) seats).putShort((short) rating);
+        endFrame(out, start);
+    }
+
+    public static void writeSpectate(ByteBuffer out, int gameId) {
+        int start = beginFrame(out, SPECTATE);
+        out.putInt(gameId);
+        endFrame(out, start);
+    }
+
+    public static void writeAction(ByteBuffer out, byte type) {
+        endFrame(out, beginFrame(out, type));
+    }
+
+    public static void writeAction(ByteBuffer out, byte type, int argument) {
+        int start = beginFrame(out, type);
+        out.put((byte) argument);
+        endFrame(out, start);
+    }
+}
@@ -0,0 +1,753 @@
+package kivi;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking game server for online play (see KiviProtocol for the wire format):
+ * - One selector thread accepts connections, reads client actions and
+ *   runs every table's GameEngine, so games need no locks
+ * - Players JOIN the matchmaking queue for a table of 2-4 seats (see
+ *   Matchmaker); tables are formed by size and rating band, and seats still
+ *   empty after the backfill wait are played by server-side CPUs
+ * - Only the player to move may act; the server checks every action
+ *   against the rules and sends the resulting state change to the whole table.
+ *   A player who has not ended their turn when the turn time is up has it
+ *   ended for them, like the game window's turn timer
+ * - Per connection there is a 256-byte read buffer and, only while a
+ *   client is behind, an output backlog (a client too far behind is dropped).
+ *   Tables share the board tables, so thousands of games fit on one box
+ * - Any number of spectators may SPECTATE a running game. They get a
+ *   snapshot, then the players' messages as deltas, collected per table over
+ *   one pass of the selector loop and written out as one shared batch.
+ *   A spectator that falls behind stops getting deltas and is sent a fresh
+ *   snapshot once it has caught up, so it never holds up the game
+ * If a player leaves a running game, it ends for everyone with the scores so far.
+ *
+ * Usage: java kivi.KiviServer [--host H] [--port P] [--backfill-ms M] [--cpu Easy|Hard]
+ *                             [--turn-ms T]
+ */
+public class KiviServer implements Runnable {
+    public static final int DEFAULT_PORT = 7777;
+    public static final long DEFAULT_BACKFILL_MILLIS = 30_000;
+    public static final int DEFAULT_RATING = 1500;
+    public static final long DEFAULT_TURN_MILLIS = 60_000;
+
+    private static final int READ_BUFFER_BYTES = 256;
+    private static final int MAX_BACKLOG_BYTES = 16 * 1024;
+    private static final int SPECTATOR_BACKLOG_BYTES = 4 * 1024;
+    private static final int RATING_BAND_WIDTH = 200;
+    private static final int RATING_BANDS = 16;
+    private static final long MATCH_INTERVAL_MILLIS = 50;
+    private static final long STATS_INTERVAL_NANOS = 60_000_000_000L;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final GameEngine board; // every table's engine shares its tables
+    private final Matchmaker<Connection> matchmaker;
+    private final CpuStrategy cpuStrategy; // plays the backfilled seats
+    private final long turnNanos;
+    private final Map<Integer, Table> tables = new HashMap<>(); // running games by id
+    private final ArrayDeque<Table> watchedTables = new ArrayDeque<>(); // with deltas to send this pass
+    // One entry per human turn started. Every turn has the same length, so
+    // deadlines come up in queue order
+    private final ArrayDeque<Table> turnTimers = new ArrayDeque<>();
+    private final ByteBuffer frame = ByteBuffer.allocate(KiviProtocol.MAX_FRAME_BYTES); // message being sent
+    private final ArrayDeque<Connection> dropped = new ArrayDeque<>(); // to disconnect once the send is done
+    private int nextGameId;
+    private int runningGames;
+    private volatile boolean running = true;
+
+    /**
+     * One player's connection.
+     */
+    private static class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        ByteBuffer backlog; // bytes the socket did not take yet, or null
+        Matchmaker.Ticket<Connection> ticket; // while queued
+        Table table;
+        int seat = -1;
+        Table watching; // as a spectator
+        int skipBytes; // of the pending deltas, already in the spectator's snapshot
+        boolean resync; // behind: skip deltas until the backlog drains
+        boolean closed;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /**
+     * One game and the connections seated at it (null for a CPU seat).
+     */
+    private static class Table {
+        final int gameId;
+        final GameEngine engine;
+        final Connection[] seats;
+        final ArrayList<Connection> spectators = new ArrayList<>();
+        ByteBuffer deltas; // messages for the spectators since the last pass
+        long turnDeadline; // System.nanoTime() at which the current turn is ended
+        int queuedTimers; // entries in turnTimers; all but the last are for turns already over
+        boolean over;
+
+        Table(int gameId, GameEngine engine, int seatCount) {
+            this.gameId = gameId;
+            this.engine = engine;
+            this.seats = new Connection[seatCount];
+        }
+    }
+
+    public KiviServer(InetSocketAddress address) throws IOException {
+        this(address, DEFAULT_BACKFILL_MILLIS, "Easy");
+    }
+
+    public KiviServer(InetSocketAddress address, long backfillMillis, String cpuDifficulty) throws IOException {
+        this(address, backfillMillis, cpuDifficulty, DEFAULT_TURN_MILLIS);
+    }
+
+    /**
+     * A server whose tables get CPUs of 'cpuDifficulty' for the seats still
+     * empty after 'backfillMillis' in the queue, and whose players get
+     * 'turnMillis' per turn. "Expert" would stall every game on the server
+     * thread, so it plays as "Hard".
+     */
+    public KiviServer(InetSocketAddress address, long backfillMillis, String cpuDifficulty, long turnMillis)
+            throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        board = new GameEngine(2);
+        matchmaker = new Matchmaker<>(RATING_BAND_WIDTH, RATING_BANDS, backfillMillis * 1_000_000L);
+        cpuStrategy = CpuStrategy.forDifficulty("Expert".equals(cpuDifficulty) ? "Hard" : cpuDifficulty);
+        turnNanos = turnMillis * 1_000_000L;
+    }
+
+    /**
+     * Run the server on a daemon thread.
+     */
+    public Thread start() {
+        Thread thread = new Thread(this, "kivi-server");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        long nextStats = System.nanoTime() + STATS_INTERVAL_NANOS;
+        long lastJoins = 0;
+        try {
+            while (running) {
+                selector.select(MATCH_INTERVAL_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        read(connection);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        flushBacklog(connection);
+                    }
+                    while (!dropped.isEmpty()) {
+                        disconnect(dropped.poll());
+                    }
+                }
+
+                long now = System.nanoTime();
+                matchmaker.match(now, this::seatTable);
+                expireTurns(now);
+                publishDeltas();
+                while (!dropped.isEmpty()) {
+                    disconnect(dropped.poll());
+                }
+                if (now - nextStats >= 0) {
+                    if (matchmaker.getJoins() != lastJoins) {
+                        lastJoins = matchmaker.getJoins();
+                        printMatchmakingStats();
+                    }
+                    nextStats = now + STATS_INTERVAL_NANOS;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // -------------------- Connections --------------------
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+        }
+    }
+
+    private void read(Connection connection) {
+        try {
+            if (connection.channel.read(connection.in) < 0) {
+                disconnect(connection);
+                return;
+            }
+        } catch (IOException e) {
+            disconnect(connection);
+            return;
+        }
+
+        ByteBuffer in = connection.in;
+        in.flip();
+        while (!connection.closed && in.remaining() >= 2) {
+            int length = 2 + (in.getShort(in.position()) & 0xFFFF);
+            if (length < KiviProtocol.HEADER_BYTES || length > KiviProtocol.MAX_FRAME_BYTES) {
+                disconnect(connection); // not a Kivi client
+                return;
+            }
+            if (in.remaining() < length) {
+                break;
+            }
+            int end = in.position() + length;
+            in.position(in.position() + 2);
+            handle(connection, in.get(), in, end);
+            in.position(end);
+        }
+        in.compact();
+    }
+
+    private void disconnect(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        connection.closed = true;
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (connection.ticket != null) {
+            connection.ticket.cancel();
+        }
+        if (connection.table != null) {
+            endGame(connection.table);
+        }
+        if (connection.watching != null) {
+            connection.watching.spectators.remove(connection);
+        }
+    }
+
+    // -------------------- Game actions --------------------
+
+    private void handle(Connection connection, byte type, ByteBuffer in, int end) {
+        if (type == KiviProtocol.JOIN) {
+            int seatCount = end - in.position() >= 1 ? in.get() : -1;
+            int rating = end - in.position() >= 2 ? in.getShort() : DEFAULT_RATING;
+            if (connection.table != null || connection.ticket != null
+                    || seatCount < Matchmaker.MIN_SEATS || seatCount > Matchmaker.MAX_SEATS) {
+                sendError(connection, KiviProtocol.BAD_MESSAGE);
+                return;
+            }
+            connection.ticket = matchmaker.join(connection, seatCount, rating);
+            return;
+        }
+        if (type == KiviProtocol.SPECTATE) {
+            Table table = end - in.position() >= 4 ? tables.get(in.getInt()) : null;
+            if (connection.table != null || connection.ticket != null || connection.watching != null) {
+                sendError(connection, KiviProtocol.BAD_MESSAGE);
+            } else if (table == null) {
+                sendError(connection, KiviProtocol.NO_SUCH_GAME);
+            } else {
+                spectate(connection, table);
+            }
+            return;
+        }
+
+        Table table = connection.table;
+        if (table == null) {
+            sendError(connection, KiviProtocol.BAD_MESSAGE);
+            return;
+        }
+        GameEngine engine = table.engine;
+        if (connection.seat != engine.getCurrentPlayer()) {
+            sendError(connection, KiviProtocol.NOT_YOUR_TURN);
+            return;
+        }
+        RollADice dice = engine.getDiceLogic();
+        int argument = end > in.position() ? in.get() : -1;
+        int start;
+        switch (type) {
+            case KiviProtocol.ROLL: {
+                int rollsBefore = dice.getRollCount();
+                boolean stonePlaced = engine.getPendingSquare() >= 0;
+                engine.rollDice();
+                if (stonePlaced) {
+                    // Rolling takes the tentative stone back, even when no roll is left
+                    start = KiviProtocol.beginFrame(frame, KiviProtocol.PLACED);
+                    frame.put((byte) -1);
+                    KiviProtocol.endFrame(frame, start);
+                    broadcast(table);
+                }
+                if (dice.getRollCount() == rollsBefore) {
+                    sendError(connection, KiviProtocol.ILLEGAL_MOVE);
+                    return;
+                }
+                broadcastRolled(table);
+                return;
+            }
+            case KiviProtocol.TOGGLE:
+                if (argument < 0 || argument >= 6 || dice.getRollCount() == 0) {
+                    sendError(connection, KiviProtocol.ILLEGAL_MOVE);
+                    return;
+                }
+                engine.toggleDieSelection(argument);
+                start = KiviProtocol.beginFrame(frame, KiviProtocol.TOGGLED);
+                frame.put((byte) argument).put((byte) dice.getKeepMask());
+                break;
+            case KiviProtocol.PLACE:
+                if (argument < 0 || argument >= engine.getState().getSquareCount()
+                        || !engine.placeStone(argument)) {
+                    sendError(connection, KiviProtocol.ILLEGAL_MOVE);
+                    return;
+                }
+                start = KiviProtocol.beginFrame(frame, KiviProtocol.PLACED);
+                frame.put((byte) argument);
+                break;
+            case KiviProtocol.END_TURN:
+                endTurn(table);
+                return;
+            default:
+                sendError(connection, KiviProtocol.BAD_MESSAGE);
+                return;
+        }
+        KiviProtocol.endFrame(frame, start);
+        broadcast(table);
+    }
+
+    // Matchmaker callback: seat the players in queue order, CPUs after them
+    private void seatTable(List<Matchmaker.Ticket<Connection>> players, int cpuSeats) {
+        int seatCount = players.size() + cpuSeats;
+        Table table = new Table(nextGameId++, board.newGame(seatCount, new RollADice()), seatCount);
+        for (int seat = 0; seat < players.size(); seat++) {
+            Connection connection = players.get(seat).getPlayer();
+            connection.ticket = null;
+            connection.table = table;
+            connection.seat = seat;
+            table.seats[seat] = connection;
+
+            int start = KiviProtocol.beginFrame(frame, KiviProtocol.JOINED);
+            frame.putInt(table.gameId).put((byte) seat).put((byte) seatCount);
+            KiviProtocol.endFrame(frame, start);
+            frame.flip();
+            send(connection, frame);
+            frame.clear();
+        }
+        tables.put(table.gameId, table);
+        runningGames++;
+        startTurn(table);
+    }
+
+    // Start the next turn. CPU seats play theirs right away, one after the
+    // other in this loop, until a player is to move or the game is over
+    private void startTurn(Table table) {
+        while (true) {
+            table.engine.startTurn();
+            int player = table.engine.getCurrentPlayer();
+            int start = KiviProtocol.beginFrame(frame, KiviProtocol.TURN_STARTED);
+            frame.put((byte) player);
+            KiviProtocol.endFrame(frame, start);
+            broadcast(table);
+            if (table.seats[player] != null) {
+                table.turnDeadline = System.nanoTime() + turnNanos;
+                table.queuedTimers++;
+                turnTimers.add(table);
+                return;
+            }
+            playCpuTurn(table);
+            if (finishTurn(table)) {
+                return;
+            }
+        }
+    }
+
+    // End the turns whose time is up, oldest first
+    private void expireTurns(long now) {
+        Table table;
+        while ((table = turnTimers.peek()) != null) {
+            if (table.queuedTimers == 1 && !table.over) {
+                if (table.turnDeadline - now > 0) {
+                    return;
+                }
+                turnTimers.poll();
+                table.queuedTimers--;
+                endTurn(table);
+            } else {
+                turnTimers.poll(); // a turn that already ended
+                table.queuedTimers--;
+            }
+        }
+    }
+
+    // Same steps as GameEngine.playCpuTurn up to the end of the turn, with
+    // every state change sent to the table
+    private void playCpuTurn(Table table) {
+        GameEngine engine = table.engine;
+        RollADice dice = engine.getDiceLogic();
+        engine.rollDice();
+        broadcastRolled(table);
+        while (true) {
+            int decision = cpuStrategy.decide(engine);
+            engine.setKeepMask(CpuStrategy.getKeepMask(decision));
+            int start = KiviProtocol.beginFrame(frame, KiviProtocol.TOGGLED);
+            frame.put((byte) -1).put((byte) dice.getKeepMask());
+            KiviProtocol.endFrame(frame, start);
+            broadcast(table);
+            if (CpuStrategy.isReroll(decision) && dice.getRollCount() < RollADice.MAX_ROLLS) {
+                engine.rollDice();
+                broadcastRolled(table);
+                continue;
+            }
+            int square = CpuStrategy.getSquare(decision);
+            if (square >= 0 && engine.placeStone(square)) {
+                start = KiviProtocol.beginFrame(frame, KiviProtocol.PLACED);
+                frame.put((byte) square);
+                KiviProtocol.endFrame(frame, start);
+                broadcast(table);
+            }
+            return;
+        }
+    }
+
+    private void endTurn(Table table) {
+        if (!finishTurn(table)) {
+            startTurn(table);
+        }
+    }
+
+    // Commit the turn and send its result; returns whether that ended the game
+    private boolean finishTurn(Table table) {
+        GameEngine engine = table.engine;
+        int player = engine.getCurrentPlayer();
+        int square = engine.getPendingSquare();
+        int points = engine.endTurn();
+        int start = KiviProtocol.beginFrame(frame, KiviProtocol.TURN_ENDED);
+        frame.put((byte) player).put((byte) square).putShort((short) points)
+                .putShort((short) engine.getState().getScore(player));
+        KiviProtocol.endFrame(frame, start);
+        broadcast(table);
+
+        if (engine.isGameOver()) {
+            endGame(table);
+            return true;
+        }
+        return false;
+    }
+
+    // Send the final scores and free the seats; players may JOIN again
+    private void endGame(Table table) {
+        table.over = true;
+        tables.remove(table.gameId);
+        runningGames--;
+        GameState state = table.engine.getState();
+        int start = KiviProtocol.beginFrame(frame, KiviProtocol.GAME_OVER);
+        frame.put((byte) table.seats.length);
+        for (int seat = 0; seat < table.seats.length; seat++) {
+            frame.putShort((short) state.getScore(seat));
+        }
+        KiviProtocol.endFrame(frame, start);
+        broadcast(table);
+        for (Connection connection : table.seats) {
+            if (connection != null) {
+                connection.table = null;
+                connection.seat = -1;
+            }
+        }
+    }
+
+    // -------------------- Spectators --------------------
+
+    private void spectate(Connection connection, Table table) {
+        if (table.deltas == null) {
+            table.deltas = ByteBuffer.allocate(512);
+        }
+        connection.watching = table;
+        table.spectators.add(connection);
+        sendSnapshot(connection);
+    }
+
+    // The whole table as one frame; deltas still pending are already in it
+    private void sendSnapshot(Connection connection) {
+        Table table = connection.watching;
+        GameEngine engine = table.engine;
+        GameState state = engine.getState();
+        RollADice dice = engine.getDiceLogic();
+        int start = KiviProtocol.beginFrame(frame, KiviProtocol.SNAPSHOT);
+        frame.putInt(table.gameId).put((byte) table.seats.length).put((byte) engine.getCurrentPlayer())
+                .put((byte) dice.getRollCount()).put((byte) dice.getKeepMask());
+        for (int value : dice.getDiceValues()) {
+            frame.put((byte) value);
+        }
+        frame.put((byte) engine.getPendingSquare()).put((byte) (table.over ? 1 : 0));
+        for (int seat = 0; seat < table.seats.length; seat++) {
+            frame.putShort((short) state.getScore(seat));
+        }
+        for (int seat = 0; seat < table.seats.length; seat++) {
+            frame.put((byte) state.getStonesLeft(seat));
+        }
+        for (int square = 0; square < state.getSquareCount(); square++) {
+            frame.put((byte) state.getOwner(square));
+        }
+        KiviProtocol.endFrame(frame, start);
+        frame.flip();
+        send(connection, frame);
+        frame.clear();
+
+        connection.skipBytes = table.deltas.position();
+        if (table.over) {
+            connection.watching = null;
+        }
+    }
+
+    // Once per pass of the selector loop: send each watched table's deltas
+    // to all of its spectators from the one buffer
+    private void publishDeltas() {
+        Table table;
+        while ((table = watchedTables.poll()) != null) {
+            ByteBuffer batch = table.deltas;
+            batch.flip();
+            for (Connection spectator : table.spectators) {
+                ByteBuffer view = batch.duplicate();
+                view.position(Math.min(spectator.skipBytes, view.limit()));
+                spectator.skipBytes = 0;
+                if (view.hasRemaining()) {
+                    sendDelta(spectator, view);
+                }
+            }
+            batch.clear();
+            if (table.over) {
+                for (Connection spectator : table.spectators) {
+                    if (!spectator.resync) {
+                        spectator.watching = null; // may SPECTATE another game
+                    }
+                }
+                table.spectators.clear();
+            }
+        }
+    }
+
+    private void sendDelta(Connection spectator, ByteBuffer batch) {
+        if (spectator.resync) {
+            return;
+        }
+        if (spectator.backlog != null
+                && spectator.backlog.position() + batch.remaining() > SPECTATOR_BACKLOG_BYTES) {
+            spectator.resync = true; // flushBacklog sends a snapshot once it has drained
+            return;
+        }
+        send(spectator, batch);
+    }
+
+    // -------------------- Output --------------------
+
+    private void broadcastRolled(Table table) {
+        GameEngine engine = table.engine;
+        RollADice dice = engine.getDiceLogic();
+        int start = KiviProtocol.beginFrame(frame, KiviProtocol.ROLLED);
+        frame.put((byte) engine.getCurrentPlayer()).put((byte) dice.getRollCount()).put((byte) dice.getKeepMask());
+        for (int value : dice.getDiceValues()) {
+            frame.put((byte) value);
+        }
+        KiviProtocol.endFrame(frame, start);
+        broadcast(table);
+    }
+
+    // Send the frame built at the start of 'frame' to every player of the table
+    private void broadcast(Table table) {
+        frame.flip();
+        for (Connection connection : table.seats) {
+            if (connection != null) {
+                send(connection, frame.duplicate());
+            }
+        }
+        if (!table.spectators.isEmpty()) {
+            if (table.deltas.position() == 0) {
+                watchedTables.add(table);
+            }
+            if (table.deltas.remaining() < frame.remaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(table.deltas.capacity() * 2);
+                table.deltas.flip();
+                larger.put(table.deltas);
+                table.deltas = larger;
+            }
+            table.deltas.put(frame);
+        }
+        frame.clear();
+    }
+
+    private void sendError(Connection connection, byte code) {
+        ByteBuffer error = ByteBuffer.allocate(KiviProtocol.HEADER_BYTES + 1);
+        int start = KiviProtocol.beginFrame(error, KiviProtocol.ERROR);
+        error.put(code);
+        KiviProtocol.endFrame(error, start);
+        error.flip();
+        send(connection, error);
+    }
+
+    // Write straight to the socket; whatever it doesn't take waits in the backlog
+    private void send(Connection connection, ByteBuffer data) {
+        if (connection.closed) {
+            return;
+        }
+        try {
+            if (connection.backlog == null) {
+                connection.channel.write(data);
+                if (!data.hasRemaining()) {
+                    return;
+                }
+                connection.backlog = ByteBuffer.allocate(Math.max(1024, data.remaining()));
+                connection.key.interestOps(connection.key.interestOps() | SelectionKey.OP_WRITE);
+            }
+            if (connection.backlog.remaining() < data.remaining()) {
+                if (connection.backlog.position() + data.remaining() > MAX_BACKLOG_BYTES) {
+                    drop(connection); // too far behind
+                    return;
+                }
+                ByteBuffer larger = ByteBuffer.allocate(Math.min(MAX_BACKLOG_BYTES,
+                        Math.max(connection.backlog.capacity() * 2, connection.backlog.position() + data.remaining())));
+                connection.backlog.flip();
+                larger.put(connection.backlog);
+                connection.backlog = larger;
+            }
+            connection.backlog.put(data);
+        } catch (IOException e) {
+            drop(connection);
+        }
+    }
+
+    // Disconnect after the current message; disconnecting may end a game,
+    // which would send to the table while this send is still going on
+    private void drop(Connection connection) {
+        if (!connection.closed && !dropped.contains(connection)) {
+            dropped.add(connection);
+        }
+    }
+
+    private void flushBacklog(Connection connection) {
+        ByteBuffer backlog = connection.backlog;
+        try {
+            backlog.flip();
+            connection.channel.write(backlog);
+            backlog.compact();
+        } catch (IOException e) {
+            disconnect(connection);
+            return;
+        }
+        if (backlog.position() == 0) {
+            connection.backlog = null;
+            connection.key.interestOps(connection.key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (connection.resync) {
+                connection.resync = false;
+                sendSnapshot(connection);
+            }
+        }
+    }
+
+    // -------------------- Getters --------------------
+
+    /**
+     * Games in progress (only meaningful on the server thread).
+     */
+    public int getRunningGames() {
+        return runningGames;
+    }
+
+    private void printMatchmakingStats() {
+        System.out.printf("matchmaking: %d joins, %d tables (%d with CPUs), wait p50 %.1f s, p90 %.1f s,"
+                        + " p99 %.1f s, max %.1f s%n",
+                matchmaker.getJoins(), matchmaker.getTables(), matchmaker.getBackfilledTables(),
+                matchmaker.getWaitPercentile(50) / 1e9, matchmaker.getWaitPercentile(90) / 1e9,
+                matchmaker.getWaitPercentile(99) / 1e9, matchmaker.getWaitPercentile(100) / 1e9);
+    }
+
+    public static void main(String[] args) throws IOException {
+        InetAddress host = InetAddress.getLoopbackAddress();
+        int port = DEFAULT_PORT;
+        long backfillMillis = DEFAULT_BACKFILL_MILLIS;
+        String cpuDifficulty = "Easy";
+        long turnMillis = DEFAULT_TURN_MILLIS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--host":
+                    host = InetAddress.getByName(args[i + 1]);
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--backfill-ms":
+                    backfillMillis = Long.parseLong(args[i + 1]);
+                    break;
+                case "--cpu":
+                    cpuDifficulty = args[i + 1];
+                    break;
+                case "--turn-ms":
+                    turnMillis = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        KiviServer server = new KiviServer(new InetSocketAddress(host, port), backfillMillis, cpuDifficulty,
+                turnMillis);
+        System.out.println("Kivi server listening on " + host.getHostAddress() + ":" + server.getPort());
+        server.run();
+    }
+}
@@ -0,0 +1,319 @@
+package kivi;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matchmaking queue for online tables of 2, 3 or 4 seats:
+ * - Players join with the table size they want and their rating; each
+ *   (table size, rating band) pair is its own bucket
+ * - join() may be called from any thread: it only appends to the bucket's
+ *   lock-free queue
+ * - One matcher thread calls match() regularly. It moves new tickets into
+ *   the bucket's waiting line and seats them first come, first served, as
+ *   soon as a table can be filled
+ * - Once the oldest player in a bucket has waited 'backfillWaitNanos', the
+ *   players waiting there get a table with the empty seats given to CPUs
+ * The time from join to being seated is recorded for the wait percentiles.
+ *
+ * Usage (throughput check): java kivi.Matchmaker [--joins N] [--threads T] [--backfill-ms M]
+ */
+public class Matchmaker<P> {
+    public static final int MIN_SEATS = 2;
+    public static final int MAX_SEATS = 4;
+
+    private final int ratingBandWidth;
+    private final int bands;
+    private final long backfillWaitNanos;
+    private final List<List<Bucket<P>>> buckets; // [seats - MIN_SEATS][band]
+    private final WaitHistogram waits = new WaitHistogram();
+    private final AtomicLong joins = new AtomicLong();
+    private long tables;
+    private long backfilledTables;
+
+    /**
+     * A player's place in the queue. Only the matcher moves a ticket out of
+     * CLAIMED, and only cancel() moves it to CANCELLED, so a player who
+     * left is never put back in line.
+     */
+    public static class Ticket<P> {
+        static final int WAITING = 0;
+        static final int CLAIMED = 1; // taken by the matcher for a table being formed
+        static final int SEATED = 2;
+        static final int CANCELLED = 3;
+
+        final P player;
+        final int seats;
+        final int rating;
+        final long joinedNanos;
+        final AtomicInteger state = new AtomicInteger(WAITING);
+
+        Ticket(P player, int seats, int rating, long joinedNanos) {
+            this.player = player;
+            this.seats = seats;
+            this.rating = rating;
+            this.joinedNanos = joinedNanos;
+        }
+
+        /**
+         * Leave the queue. Returns false if the player was already seated
+         * (or had already left). While the matcher holds the ticket this
+         * waits for it to either seat the player or put them back in line,
+         * so never call it from inside a TableListener.
+         */
+        public boolean cancel() {
+            while (true) {
+                int current = state.get();
+                if (current == WAITING) {
+                    if (state.compareAndSet(WAITING, CANCELLED)) {
+                        return true;
+                    }
+                } else if (current == CLAIMED) {
+                    Thread.onSpinWait();
+                } else {
+                    return false;
+                }
+            }
+        }
+
+        public P getPlayer() {
+            return player;
+        }
+
+        public int getRating() {
+            return rating;
+        }
+    }
+
+    /**
+     * Receives each table match() forms: the seated players and how many
+     * more seats go to CPU players.
+     */
+    public interface TableListener<P> {
+        void tableFormed(List<Ticket<P>> players, int cpuSeats);
+    }
+
+    private static class Bucket<P> {
+        final ConcurrentLinkedQueue<Ticket<P>> incoming = new ConcurrentLinkedQueue<>();
+        final ArrayDeque<Ticket<P>> waiting = new ArrayDeque<>(); // matcher thread only
+    }
+
+    public Matchmaker(int ratingBandWidth, int bands, long backfillWaitNanos) {
+        this.ratingBandWidth = ratingBandWidth;
+        this.bands = bands;
+        this.backfillWaitNanos = backfillWaitNanos;
+        buckets = new ArrayList<>();
+        for (int seats = MIN_SEATS; seats <= MAX_SEATS; seats++) {
+            List<Bucket<P>> seatBuckets = new ArrayList<>();
+            for (int band = 0; band < bands; band++) {
+                seatBuckets.add(new Bucket<>());
+            }
+            buckets.add(seatBuckets);
+        }
+    }
+
+    /**
+     * Queue a player for a table of 'seats' (2-4). Safe from any thread.
+     */
+    public Ticket<P> join(P player, int seats, int rating) {
+        if (seats < MIN_SEATS || seats > MAX_SEATS) {
+            throw new IllegalArgumentException("Tables have 2 to 4 seats, not " + seats);
+        }
+        Ticket<P> ticket = new Ticket<>(player, seats, rating, System.nanoTime());
+        int band = Math.max(0, Math.min(bands - 1, rating / ratingBandWidth));
+        buckets.get(seats - MIN_SEATS).get(band).incoming.add(ticket);
+        joins.incrementAndGet();
+        return ticket;
+    }
+
+    /**
+     * Form every table that can be formed now. Call from one thread only.
+     */
+    public void match(long nowNanos, TableListener<P> listener) {
+        for (int seats = MIN_SEATS; seats <= MAX_SEATS; seats++) {
+            for (int band = 0; band < bands; band++) {
+                Bucket<P> bucket = buckets.get(seats - MIN_SEATS).get(band);
+                Ticket<P> ticket;
+                while ((ticket = bucket.incoming.poll()) != null) {
+                    bucket.waiting.add(ticket);
+                }
+                matchBucket(bucket, seats, nowNanos, listener);
+            }
+        }
+    }
+
+    private void matchBucket(Bucket<P> bucket, int seats, long nowNanos, TableListener<P> listener) {
+        List<Ticket<P>> table = new ArrayList<>(seats);
+        while (!bucket.waiting.isEmpty()) {
+            // Claim players from the front until the table is full
+            Ticket<P> ticket = bucket.waiting.poll();
+            if (!ticket.state.compareAndSet(Ticket.WAITING, Ticket.CLAIMED)) {
+                continue; // left the queue
+            }
+            table.add(ticket);
+            if (table.size() == seats) {
+                seat(table, 0, nowNanos, listener);
+                table = new ArrayList<>(seats);
+            }
+        }
+        if (table.isEmpty()) {
+            return;
+        }
+        if (nowNanos - table.get(0).joinedNanos >= backfillWaitNanos) {
+            seat(table, seats - table.size(), nowNanos, listener);
+            backfilledTables++;
+            return;
+        }
+        // Not enough players yet: put them back in line, claimed by nobody
+        for (int i = table.size() - 1; i >= 0; i--) {
+            Ticket<P> ticket = table.get(i);
+            ticket.state.compareAndSet(Ticket.CLAIMED, Ticket.WAITING);
+            bucket.waiting.addFirst(ticket);
+        }
+    }
+
+    private void seat(List<Ticket<P>> table, int cpuSeats, long nowNanos, TableListener<P> listener) {
+        for (Ticket<P> ticket : table) {
+            ticket.state.set(Ticket.SEATED);
+            waits.record(nowNanos - ticket.joinedNanos);
+        }
+        tables++;
+        listener.tableFormed(table, cpuSeats);
+    }
+
+    // -------------------- Getters --------------------
+
+    public long getJoins() {
+        return joins.get();
+    }
+
+    public long getTables() {
+        return tables;
+    }
+
+    public long getBackfilledTables() {
+        return backfilledTables;
+    }
+
+    /**
+     * Wait from join to seat at the given percentile (0-100), in nanoseconds,
+     * to within about 6%. Read from the matcher thread.
+     */
+    public long getWaitPercentile(double percentile) {
+        return waits.percentile(percentile);
+    }
+
+    public long getSeatedPlayers() {
+        return waits.count;
+    }
+
+    /**
+     * Log-linear histogram: 16 sub-buckets per power of two, so any
+     * value is kept to within 1/16 using a fixed 8 KB table.
+     */
+    private static class WaitHistogram {
+        private static final int SUB_BUCKETS = 16;
+        private final long[] counts = new long[64 * SUB_BUCKETS];
+        private long count;
+
+        void record(long value) {
+            counts[index(Math.max(0, value))]++;
+            count++;
+        }
+
+        long percentile(double percentile) {
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return upperBound(i);
+                }
+            }
+            return 0;
+        }
+
+        private static int index(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value); // >= 4
+            int mantissa = (int) (value >>> (exponent - 4)) & (SUB_BUCKETS - 1);
+            return (exponent - 3) * SUB_BUCKETS + mantissa;
+        }
+
+        private static long upperBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + 3;
+            long mantissa = index % SUB_BUCKETS;
+            return ((SUB_BUCKETS + mantissa + 1) << (exponent - 4)) - 1;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int totalJoins = 1_000_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long backfillMillis = 2000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--joins":
+                    totalJoins = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--backfill-ms":
+                    backfillMillis = Long.parseLong(args[i + 1]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        Matchmaker<Integer> matchmaker = new Matchmaker<>(200, 16, backfillMillis * 1_000_000L);
+        long[] humans = new long[1];
+        TableListener<Integer> listener = (players, cpuSeats) -> humans[0] += players.size();
+
+        int perThread = totalJoins / threads;
+        Thread[] producers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            producers[t] = new Thread(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < perThread; i++) {
+                    int rating = (int) Math.max(0, 1500 + random.nextGaussian() * 300);
+                    matchmaker.join(i, MIN_SEATS + random.nextInt(MAX_SEATS - MIN_SEATS + 1), rating);
+                }
+            });
+            producers[t].start();
+        }
+
+        // The matcher runs every millisecond until every player is seated
+        long joined = (long) perThread * threads;
+        while (humans[0] < joined) {
+            matchmaker.match(System.nanoTime(), listener);
+            Thread.sleep(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        System.out.printf("%d joins from %d threads, all seated in %.2f s (%.0f joins/s)%n",
+                joined, threads, seconds, joined / seconds);
+        System.out.printf("%d tables, %d with CPU backfill%n",
+                matchmaker.getTables(), matchmaker.getBackfilledTables());
+        for (String p : new String[] { "50", "90", "99", "99.9", "100" }) {
+            System.out.printf("  wait p%-5s %10.3f ms%n", p, matchmaker.getWaitPercentile(Double.parseDouble(p)) / 1e6);
+        }
+    }
+}
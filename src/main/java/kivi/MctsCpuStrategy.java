@@ -0,0 +1,399 @@
+package kivi;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The "Expert" CPU: Monte Carlo Tree Search over whole-game rollouts.
+ * - Keep/reroll decisions come from the exact ExpectimaxCpuStrategy
+ * - Where to place is searched: every free square reachable with some
+ *   subset of the final roll is a root move
+ * - Below the root, each node is a square some player took on a later
+ *   turn (-1: nothing fit). The tree is open-loop: dice are rolled anew
+ *   every iteration, so a node's children are chosen by UCB1 among the
+ *   squares the roll allows, counting a child's availability rather than
+ *   its parent's visits
+ * - Each iteration adds one node (the best-scoring untried square) and
+ *   plays the rest of the game out with a fast greedy policy; every node
+ *   on the path is rewarded from the side of the player who moved there
+ * The search therefore sees squares taken away from (or by) the opponents,
+ * not just the points of the current placement.
+ *
+ * Search is root-parallel on a ForkJoinPool: each leaf task grows its own
+ * tree on its own copy of the game, and the root visit counts are summed
+ * at the end. No statistics are shared while searching, so no locks or
+ * virtual loss are needed and throughput scales with the cores.
+ */
+public class MctsCpuStrategy implements CpuStrategy {
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+    private static final double MARGIN_WEIGHT = 0.5;
+    private static final double MARGIN_SCALE = 20.0;
+    private static final int MAX_TURNS = 1000; // per iteration, for boards that never fill up
+
+    private final ForkJoinPool pool;
+    private final int iterations;
+    private final long timeBudgetNanos;
+    private final ExpectimaxCpuStrategy diceStrategy = new ExpectimaxCpuStrategy();
+    private final MoveGenerator moves = new MoveGenerator();
+
+    public MctsCpuStrategy() {
+        this(ForkJoinPool.commonPool(), 20000, 1000);
+    }
+
+    /**
+     * @param pool             pool running the rollouts
+     * @param iterations       total rollouts per placement decision
+     * @param timeBudgetMillis stop earlier than that once this much time has passed
+     */
+    public MctsCpuStrategy(ForkJoinPool pool, int iterations, long timeBudgetMillis) {
+        this.pool = pool;
+        this.iterations = iterations;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+    }
+
+    @Override
+    public int decide(GameEngine engine) {
+        RollADice diceLogic = engine.getDiceLogic();
+        int decision = diceStrategy.decide(engine);
+        if (CpuStrategy.isReroll(decision) && diceLogic.getRollCount() < RollADice.MAX_ROLLS) {
+            return decision;
+        }
+
+        // Root moves: each free square some subset of the roll fits, with one keep mask for it
+        int generated = moves.generate(engine);
+        int squareCount = engine.getState().getSquareCount();
+        int[] squares = new int[squareCount];
+        int[] keepMasks = new int[squareCount];
+        int moveCount = 0;
+        long[] seen = Bitboard.create(squareCount);
+        for (int i = 0; i < generated; i++) {
+            int move = moves.getMove(i);
+            int square = CpuStrategy.getSquare(move);
+            if (!Bitboard.get(seen, square)) {
+                Bitboard.set(seen, square);
+                squares[moveCount] = square;
+                keepMasks[moveCount] = CpuStrategy.getKeepMask(move);
+                moveCount++;
+            }
+        }
+        if (moveCount == 0) {
+            return CpuStrategy.place(0, -1);
+        }
+        if (moveCount == 1) {
+            return CpuStrategy.place(keepMasks[0], squares[0]);
+        }
+
+        GameEngine snapshot = engine.newSimulation(new RollADice());
+        long deadline = System.nanoTime() + timeBudgetNanos;
+        SearchTask search = new SearchTask(snapshot, squares, moveCount,
+                pool.getParallelism(), iterations, deadline);
+        pool.invoke(search);
+
+        int best = 0;
+        for (int move = 1; move < moveCount; move++) {
+            if (search.visits[move] > search.visits[best]) {
+                best = move;
+            }
+        }
+        return CpuStrategy.place(keepMasks[best], squares[best]);
+    }
+
+    /**
+     * Splits the rollout budget across 'workers' leaf tasks, then sums
+     * their per-move statistics.
+     */
+    private static class SearchTask extends RecursiveAction {
+        private final GameEngine snapshot;
+        private final int[] squares;
+        private final int moveCount;
+        private final int workers;
+        private final int iterations;
+        private final long deadline;
+        final int[] visits;
+        final double[] rewards;
+
+        SearchTask(GameEngine snapshot, int[] squares, int moveCount, int workers, int iterations,
+                long deadline) {
+            this.snapshot = snapshot;
+            this.squares = squares;
+            this.moveCount = moveCount;
+            this.workers = workers;
+            this.iterations = iterations;
+            this.deadline = deadline;
+            this.visits = new int[moveCount];
+            this.rewards = new double[moveCount];
+        }
+
+        @Override
+        protected void compute() {
+            if (workers <= 1) {
+                search();
+                return;
+            }
+            int leftWorkers = workers / 2;
+            int leftIterations = (int) ((long) iterations * leftWorkers / workers);
+            SearchTask left = new SearchTask(snapshot, squares, moveCount, leftWorkers,
+                    leftIterations, deadline);
+            SearchTask right = new SearchTask(snapshot, squares, moveCount, workers - leftWorkers,
+                    iterations - leftIterations, deadline);
+            invokeAll(left, right);
+            for (int move = 0; move < moveCount; move++) {
+                visits[move] = left.visits[move] + right.visits[move];
+                rewards[move] = left.rewards[move] + right.rewards[move];
+            }
+        }
+
+        // Grow one tree on this worker's own game copy; its root children
+        // are the root moves, in order
+        private void search() {
+            long baseSeed = ThreadLocalRandom.current().nextLong();
+            RollADice dice = new RollADice(baseSeed);
+            GameEngine simulation = snapshot.newSimulation(dice);
+            GreedyRolloutStrategy rollout = new GreedyRolloutStrategy();
+            GameState start = snapshot.getState();
+            int player = start.getCurrentPlayer();
+            Node root = new Node(-1, -1);
+            for (int move = 0; move < moveCount; move++) {
+                root.addChild(squares[move], player);
+            }
+            TreePolicy tree = new TreePolicy(start.getSquareCount());
+
+            for (int i = 0; i < iterations; i++) {
+                if (i % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0) {
+                    break;
+                }
+                // The final roll is known, so every root move is available
+                Node first = root.children[select(root, i)];
+                // The k-th visit of every root move sees the same dice (common
+                // random numbers), so root moves are compared on equal luck
+                dice.reseed(baseSeed + first.visits * 0x9E3779B97F4A7C15L);
+
+                GameState state = simulation.getState();
+                state.copyFrom(start);
+                simulation.commitStone(first.square);
+                state.advancePlayer();
+                tree.begin(first);
+                int turns = 0;
+                while (!state.isGameOver() && !tree.expanded && turns < MAX_TURNS) {
+                    simulation.playCpuTurn(tree);
+                    turns++;
+                }
+                while (!state.isGameOver() && turns < MAX_TURNS) {
+                    simulation.playCpuTurn(rollout);
+                    turns++;
+                }
+
+                for (int depth = 0; depth < tree.depth; depth++) {
+                    Node node = tree.path[depth];
+                    node.visits++;
+                    node.rewards += reward(state, node.player);
+                }
+            }
+
+            for (int move = 0; move < moveCount; move++) {
+                visits[move] = root.children[move].visits;
+                rewards[move] = root.children[move].rewards;
+            }
+        }
+
+        private static int select(Node root, int totalVisits) {
+            double logTotal = Math.log(totalVisits + 1);
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int move = 0; move < root.childCount; move++) {
+                Node child = root.children[move];
+                if (child.visits == 0) {
+                    return move;
+                }
+                double score = child.rewards / child.visits
+                        + EXPLORATION * Math.sqrt(logTotal / child.visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = move;
+                }
+            }
+            return best;
+        }
+
+        // Win/loss plus a small share for the margin over the best opponent, in [0, 1]
+        private static double reward(GameState state, int player) {
+            int bestOther = Integer.MIN_VALUE;
+            for (int p = 0; p < state.getPlayerCount(); p++) {
+                if (p != player) {
+                    bestOther = Math.max(bestOther, state.getScore(p));
+                }
+            }
+            int margin = state.getScore(player) - bestOther;
+            double outcome = margin > 0 ? 1.0 : margin == 0 ? 0.5 : 0.0;
+            double spread = Math.max(-1.0, Math.min(1.0, margin / MARGIN_SCALE));
+            return (1 - MARGIN_WEIGHT) * outcome + MARGIN_WEIGHT * (spread + 1) / 2;
+        }
+    }
+
+    /**
+     * A square some player took, with the results of the iterations that
+     * passed through it, from that player's side.
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        final int square; // -1: nothing fit the roll
+        final int player;
+        int visits;
+        int availability; // iterations in which the roll allowed this square
+        double rewards;
+        Node[] children = NO_CHILDREN;
+        int childCount;
+
+        Node(int square, int player) {
+            this.square = square;
+            this.player = player;
+        }
+
+        Node addChild(int square, int player) {
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(4, childCount * 2));
+            }
+            Node child = new Node(square, player);
+            children[childCount++] = child;
+            return child;
+        }
+    }
+
+    /**
+     * In-tree policy, one per search worker: never rerolls, then picks
+     * the current node's child by UCB1 among the squares the roll allows,
+     * or adds a node for the best-scoring untried one and stops there.
+     */
+    private static class TreePolicy implements CpuStrategy {
+        private final MoveGenerator moves = new MoveGenerator();
+        private final long[] seen;
+        private final int[] childIndex; // by square + 1, -1 for no child
+        private Node node;
+        Node[] path = new Node[16];
+        int depth;
+        boolean expanded;
+
+        TreePolicy(int squareCount) {
+            seen = Bitboard.create(squareCount);
+            childIndex = new int[squareCount + 1];
+            Arrays.fill(childIndex, -1);
+        }
+
+        // Start an iteration below the root move 'first'
+        void begin(Node first) {
+            depth = 0;
+            expanded = false;
+            node = first;
+            push(first);
+        }
+
+        @Override
+        public int decide(GameEngine engine) {
+            int player = engine.getCurrentPlayer();
+            for (int i = 0; i < node.childCount; i++) {
+                childIndex[node.children[i].square + 1] = i;
+            }
+
+            Node best = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            int bestMove = CpuStrategy.place(0, -1);
+            int untried = -1;
+            int untriedPoints = -1;
+            Arrays.fill(seen, 0L);
+            int count = moves.generate(engine);
+            for (int i = 0; i < count; i++) {
+                int move = moves.getMove(i);
+                int square = CpuStrategy.getSquare(move);
+                if (Bitboard.get(seen, square)) {
+                    continue; // seen already, with another keep mask
+                }
+                Bitboard.set(seen, square);
+                if (childIndex[square + 1] < 0) {
+                    int points = engine.getScoreDelta(square);
+                    if (points > untriedPoints) {
+                        untriedPoints = points;
+                        untried = move;
+                    }
+                    continue;
+                }
+                Node child = node.children[childIndex[square + 1]];
+                child.availability++;
+                double score = child.rewards / child.visits
+                        + EXPLORATION * Math.sqrt(Math.log(child.availability) / child.visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = child;
+                    bestMove = move;
+                }
+            }
+            if (count == 0) {
+                // Nothing fits: the only move is to place nothing
+                int pass = childIndex[0];
+                if (pass >= 0) {
+                    best = node.children[pass];
+                    best.availability++;
+                } else {
+                    untried = bestMove;
+                }
+            }
+            for (int i = 0; i < node.childCount; i++) {
+                childIndex[node.children[i].square + 1] = -1;
+            }
+
+            if (untried != -1) {
+                best = node.addChild(CpuStrategy.getSquare(untried), player);
+                best.availability++;
+                bestMove = untried;
+                expanded = true;
+            }
+            node = best;
+            push(best);
+            return bestMove;
+        }
+
+        private void push(Node child) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+            path[depth++] = child;
+        }
+    }
+
+    /**
+     * Rollout policy: never rerolls and places where any subset of the
+     * first roll fits and the score gains the most.
+     */
+    private static class GreedyRolloutStrategy implements CpuStrategy {
+        private final MoveGenerator moves = new MoveGenerator();
+        private long[] seen = new long[0];
+
+        @Override
+        public int decide(GameEngine engine) {
+            int best = CpuStrategy.place(0, -1);
+            int bestPoints = -1;
+            if (seen.length != engine.getState().getWordCount()) {
+                seen = Bitboard.create(engine.getState().getSquareCount());
+            }
+            Arrays.fill(seen, 0L);
+            int count = moves.generate(engine);
+            for (int i = 0; i < count; i++) {
+                int move = moves.getMove(i);
+                int square = CpuStrategy.getSquare(move);
+                if (Bitboard.get(seen, square)) {
+                    continue; // scored already, with another keep mask
+                }
+                Bitboard.set(seen, square);
+                int points = engine.getScoreDelta(square);
+                if (points > bestPoints) {
+                    bestPoints = points;
+                    best = move;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package kivi;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Suggests the best choices for the current roll, worked out on a
+ * background thread so neither the Swing thread nor the game loop waits:
+ * - Placing now: every square some subset of the roll fits, worth the
+ *   points the stone scores (from MoveGenerator, right away)
+ * - Rerolling: every subset of the roll to keep, worth the expected points
+ *   of playing the rest of the turn perfectly (from ExpectimaxCpuStrategy,
+ *   a few milliseconds later), with the combination that still has a free
+ *   square and the best odds of being made (from RerollProbabilities)
+ * Each stage hands the best MAX_HINTS choices so far to the listener, on
+ * the Swing thread. A new request or cancel() makes every older request
+ * stop at its next check and drops its results, so stale advice is never
+ * shown.
+ */
+public class MoveAdvisor {
+    public static final int MAX_HINTS = 5;
+
+    /**
+     * One suggested choice: keep the dice in the keep mask and place on the
+     * square, or reroll the others for square -1.
+     */
+    public static final class Hint {
+        private final int keepMask;
+        private final int keptHistogram;
+        private final int square;
+        private final double value;
+        private final int target;
+        private final float targetOdds;
+
+        Hint(int keepMask, int keptHistogram, int square, double value) {
+            this(keepMask, keptHistogram, square, value, -1, 0);
+        }
+
+        Hint(int keepMask, int keptHistogram, int square, double value, int target, float targetOdds) {
+            this.keepMask = keepMask;
+            this.keptHistogram = keptHistogram;
+            this.square = square;
+            this.value = value;
+            this.target = target;
+            this.targetOdds = targetOdds;
+        }
+
+        public int getKeepMask() {
+            return keepMask;
+        }
+
+        public int getKeptHistogram() {
+            return keptHistogram;
+        }
+
+        public int getSquare() {
+            return square;
+        }
+
+        public boolean isReroll() {
+            return square < 0;
+        }
+
+        /**
+         * Points the choice scores this turn (expected points for a reroll).
+         */
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * For a reroll, the combination with a free square it is most likely
+         * to make by the end of the turn (see BoardRules.getCombinationName),
+         * or -1 if unknown.
+         */
+        public int getTarget() {
+            return target;
+        }
+
+        public float getTargetOdds() {
+            return targetOdds;
+        }
+    }
+
+    /**
+     * Receives the advice for the latest request, best first, on the Swing
+     * thread; 'complete' is false while better estimates may follow.
+     */
+    public interface Listener {
+        void adviceChanged(Hint[] hints, int keptHistogram, boolean complete);
+    }
+
+    private final Listener listener;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "kivi-advisor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // Worker thread only
+    private final MoveGenerator moves = new MoveGenerator();
+    private final ExpectimaxCpuStrategy expectimax = new ExpectimaxCpuStrategy();
+    private RerollProbabilities odds; // mapped on the first reroll hints
+    private boolean oddsMissing;
+
+    public MoveAdvisor(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Start advising on the engine's current roll, cancelling the previous
+     * request. Call from the thread that owns the engine; the work runs on
+     * a copy of the game. Does nothing once the advisor is closed.
+     */
+    public void request(GameEngine engine) {
+        if (worker.isShutdown()) {
+            return;
+        }
+        int request = generation.incrementAndGet();
+        RollADice diceLogic = engine.getDiceLogic();
+        int keptHistogram = diceLogic.getKeptHistogram();
+        if (diceLogic.getRollCount() == 0) {
+            deliver(request, new ArrayList<>(), keptHistogram, true);
+            return;
+        }
+        GameEngine snapshot = engine.snapshot();
+        try {
+            worker.execute(() -> advise(request, snapshot, keptHistogram));
+        } catch (RejectedExecutionException e) {
+            // closed from another thread since the check above
+        }
+    }
+
+    /**
+     * Stop the current request; its results are dropped.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Cancel and stop the worker thread for good; later requests are
+     * ignored. Safe from any thread.
+     */
+    public void close() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private void advise(int request, GameEngine engine, int keptHistogram) {
+        if (request != generation.get()) {
+            return;
+        }
+        RollADice diceLogic = engine.getDiceLogic();
+        int[] values = diceLogic.getDiceValues();
+        int rerollsLeft = RollADice.MAX_ROLLS - diceLogic.getRollCount();
+        ArrayList<Hint> hints = new ArrayList<>();
+
+        // Placing now, one hint per square (any keep mask that fits it will do)
+        long[] seen = Bitboard.create(engine.getState().getSquareCount());
+        int count = moves.generate(engine);
+        for (int i = 0; i < count; i++) {
+            int move = moves.getMove(i);
+            int square = CpuStrategy.getSquare(move);
+            if (!Bitboard.get(seen, square)) {
+                Bitboard.set(seen, square);
+                int keepMask = CpuStrategy.getKeepMask(move);
+                hints.add(new Hint(keepMask, DiceHistogram.of(values, keepMask), square,
+                        engine.getScoreDelta(square)));
+            }
+        }
+        deliver(request, hints, keptHistogram, rerollsLeft == 0);
+        if (rerollsLeft == 0 || request != generation.get()) {
+            return;
+        }
+
+        // Rerolling, with the exact expectation of every subset to keep
+        expectimax.evaluate(engine, rerollsLeft);
+        RerollProbabilities odds = getOdds(engine.getRules());
+        int open = odds == null ? 0 : openCombinations(engine);
+        for (int kept : DiceHistogram.subsets(DiceHistogram.index(diceLogic.getRollHistogram()))) {
+            if (DiceHistogram.size(kept) == DiceHistogram.MAX_DICE) {
+                continue;
+            }
+            int target = -1;
+            float targetOdds = 0;
+            for (int combination = 0; (open >>> combination) != 0; combination++) {
+                float p = (open & (1 << combination)) != 0 ? odds.get(kept, rerollsLeft - 1, combination) : 0;
+                if (p > targetOdds) {
+                    target = combination;
+                    targetOdds = p;
+                }
+            }
+            hints.add(new Hint(MoveGenerator.keepMaskFor(values, kept), kept, -1,
+                    expectimax.getKeepValue(rerollsLeft, kept), target, targetOdds));
+        }
+        deliver(request, hints, keptHistogram, true);
+    }
+
+    // The shared odds table, if it loads and is for these rules' combinations
+    private RerollProbabilities getOdds(BoardRules rules) {
+        if (odds == null && !oddsMissing) {
+            try {
+                odds = RerollProbabilities.getShared();
+            } catch (IOException e) {
+                e.printStackTrace();
+                oddsMissing = true;
+            }
+        }
+        return odds != null && RerollProbabilities.covers(rules) ? odds : null;
+    }
+
+    // Bitmask of the combinations shown on some free square
+    private static int openCombinations(GameEngine engine) {
+        BoardRules rules = engine.getRules();
+        int open = 0;
+        for (int square = 0; square < rules.getSquareCount(); square++) {
+            if (engine.isFree(square)) {
+                open |= 1 << rules.getSquareCombination(square);
+            }
+        }
+        return open;
+    }
+
+    // Hand the best hints to the listener, unless the request is stale by then
+    private void deliver(int request, ArrayList<Hint> hints, int keptHistogram, boolean complete) {
+        if (request != generation.get()) {
+            return;
+        }
+        hints.sort((a, b) -> Double.compare(b.value, a.value));
+        Hint[] best = hints.subList(0, Math.min(MAX_HINTS, hints.size())).toArray(new Hint[0]);
+        SwingUtilities.invokeLater(() -> {
+            if (request == generation.get()) {
+                listener.adviceChanged(best, keptHistogram, complete);
+            }
+        });
+    }
+}
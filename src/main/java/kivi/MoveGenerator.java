@@ -0,0 +1,109 @@
+package kivi;
+
+import java.util.Arrays;
+
+/**
+ * Lists every legal move for a roll: each (keep mask, square) pair where the
+ * kept dice fit the free square. Moves are packed like CpuStrategy.place
+ * decisions, so a strategy can return one as it is.
+ * - Keep masks that keep the same multiset of dice are one move: each
+ *   distinct sub-multiset of the roll (DiceHistogram.subsets) appears once,
+ *   with the lowest dice that make it up
+ * - Legality comes from GameEngine.getValidSquares, the same per-multiset
+ *   table the engine checks placements and highlights squares with
+ * - Moves are grouped by multiset, squares in row-major order within one
+ * Moves go into a buffer that is reused by the next call, so generating
+ * never allocates once the buffer has grown to the board.
+ * Instances are not thread-safe; give each search thread its own.
+ */
+public class MoveGenerator {
+    // A roll of six dice has at most 63 distinct non-empty sub-multisets
+    private static final int MAX_MULTISETS = 63;
+
+    private int[] moves = new int[0];
+    private int moveCount;
+    private long[] validSquares = new long[0]; // per multiset, reused
+    private long[] squareMask = new long[0];
+
+    /**
+     * Generate the moves for the engine's current roll and board; none
+     * before the first roll. Returns the number of moves.
+     */
+    public int generate(GameEngine engine) {
+        RollADice diceLogic = engine.getDiceLogic();
+        if (diceLogic.getRollCount() == 0) {
+            moveCount = 0;
+            Arrays.fill(squareMask, 0L);
+            return 0;
+        }
+        return generate(engine, diceLogic.getDiceValues(), diceLogic.getRollHistogram());
+    }
+
+    /**
+     * Generate the moves for six dice 'values' (with their histogram
+     * 'rollHistogram') on the engine's board. Returns the number of moves.
+     */
+    public int generate(GameEngine engine, int[] values, int rollHistogram) {
+        int squareCount = engine.getState().getSquareCount();
+        if (moves.length < MAX_MULTISETS * squareCount) {
+            moves = new int[MAX_MULTISETS * squareCount];
+        }
+        if (validSquares.length != engine.getState().getWordCount()) {
+            validSquares = Bitboard.create(squareCount);
+            squareMask = Bitboard.create(squareCount);
+        }
+        Arrays.fill(squareMask, 0L);
+        int count = 0;
+        for (int kept : DiceHistogram.subsets(DiceHistogram.index(rollHistogram))) {
+            if (kept == DiceHistogram.EMPTY || !engine.getValidSquares(kept, validSquares)) {
+                continue;
+            }
+            int keepMask = keepMaskFor(values, kept);
+            for (int word = 0; word < validSquares.length; word++) {
+                long bits = validSquares[word];
+                squareMask[word] |= bits;
+                while (bits != 0) {
+                    moves[count++] = CpuStrategy.place(keepMask, (word << 6) + Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        }
+        moveCount = count;
+        return count;
+    }
+
+    /**
+     * Pick which dice to select so the kept dice form the given multiset.
+     */
+    public static int keepMaskFor(int[] values, int histogram) {
+        int keepMask = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (DiceHistogram.count(histogram, values[i]) > 0) {
+                histogram = DiceHistogram.remove(histogram, values[i]);
+                keepMask |= 1 << i;
+            }
+        }
+        return keepMask;
+    }
+
+    // -------------------- Getters --------------------
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * The i-th move of the last generate call; see CpuStrategy.getKeepMask
+     * and CpuStrategy.getSquare.
+     */
+    public int getMove(int i) {
+        return moves[i];
+    }
+
+    /**
+     * Whether some move of the last generate call goes on 'square'.
+     */
+    public boolean hasMoveOn(int square) {
+        return square < squareMask.length << 6 && Bitboard.get(squareMask, square);
+    }
+}
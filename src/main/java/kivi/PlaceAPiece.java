@@ -0,0 +1,76 @@
+package kivi;
+
+/**
+ * A helper class to manage all piece-placement logic on the board:
+ * - Checking if a dice combination is valid for a given square
+ * - Placing the (tentative) piece in the engine
+ * Occupancy comes from the GameEngine's GameState, and the board is drawn
+ * by BoardCanvas, so the rule checks themselves are Swing-free.
+ *
+ * Rule checks are reads from the tables BoardRules compiles once for all
+ * 924 multisets of 0-6 dice; the static ones are for the standard board.
+ */
+public class PlaceAPiece {
+
+    // Every combination of the standard board; the position is the combination's bit
+    public static final String[] COMBINATIONS = combinationNames(BoardRules.standard());
+
+    private final int boardSize;
+    private final GameEngine engine;
+
+    public PlaceAPiece(GameEngine engine) {
+        this.boardSize = engine.getBoardSize();
+        this.engine = engine;
+    }
+
+    /**
+     * Attempts to place the piece on the board at (row, col)
+     * using the selected dice (as a packed DiceHistogram).
+     * - If it's invalid, return the message to show the player.
+     * - If valid, place the piece in the engine and return null.
+     * Runs on the game loop; the board is updated separately.
+     */
+    public String attemptPlacePiece(int row, int col, int selectedHistogram) {
+        // If no dice are selected, block
+        if (selectedHistogram == DiceHistogram.EMPTY) {
+            return "Please select dice first!";
+        }
+
+        // Check if it's valid for that square (a capture may take an occupied one)
+        int index = row * boardSize + col;
+        if (!engine.canPlace(selectedHistogram, index)) {
+            return engine.isFree(index)
+                    ? "Invalid placement! This combination doesn't match the square requirements."
+                    : "This square is already occupied!";
+        }
+
+        // If valid, place the piece
+        engine.placeStone(index);
+        return null;
+    }
+
+    /**
+     * Checks whether the selected dice fulfill the requirements of a square
+     * type, as a table lookup: does the dice histogram fulfill combination number
+     * 'combination' (an index into COMBINATIONS)?
+     */
+    public static boolean isValidPlacement(int combination, int histogram) {
+        return (getCombinationMask(histogram) & (1 << combination)) != 0;
+    }
+
+    /**
+     * Bitmask of every combination (bit = index into COMBINATIONS) the
+     * dice histogram fulfills.
+     */
+    public static int getCombinationMask(int histogram) {
+        return BoardRules.standard().getCombinationMask(histogram);
+    }
+
+    private static String[] combinationNames(BoardRules rules) {
+        String[] names = new String[rules.getCombinationCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = rules.getCombinationName(i);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,131 @@
+package kivi;
+
+import java.awt.Color;
+import java.util.ArrayList;
+
+/**
+ * What the player list shows for each player: name, color, stones left,
+ * score, and whether it is their turn. Setters only notify the listeners
+ * when a value actually changes, saying which fields did (a bitmask of
+ * NAME, COLOR, STONES, SCORE and ACTIVE), so views can update just those.
+ * Swing thread only.
+ */
+public class PlayerInfoModel {
+    public static final int NAME = 1;
+    public static final int COLOR = 1 << 1;
+    public static final int STONES = 1 << 2;
+    public static final int SCORE = 1 << 3;
+    public static final int ACTIVE = 1 << 4;
+
+    /**
+     * Told about every change to one player's fields.
+     */
+    public interface Listener {
+        void playerChanged(int player, int changes);
+    }
+
+    private final String[] names;
+    private final Color[] colors;
+    private final int[] stonesLeft;
+    private final int[] scores;
+    private int activePlayer = -1;
+    private final ArrayList<Listener> listeners = new ArrayList<>();
+
+    public PlayerInfoModel(String[] names, Color[] colors) {
+        this.names = names.clone();
+        this.colors = colors.clone();
+        stonesLeft = new int[names.length];
+        scores = new int[names.length];
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void setName(int player, String name) {
+        if (!name.equals(names[player])) {
+            names[player] = name;
+            fire(player, NAME);
+        }
+    }
+
+    public void setColor(int player, Color color) {
+        if (!color.equals(colors[player])) {
+            colors[player] = color;
+            fire(player, COLOR);
+        }
+    }
+
+    /**
+     * Update every player's stones and score at once, e.g. after a turn.
+     */
+    public void setStats(int[] playerStonesLeft, int[] playerScores) {
+        for (int player = 0; player < names.length; player++) {
+            int changes = 0;
+            if (stonesLeft[player] != playerStonesLeft[player]) {
+                stonesLeft[player] = playerStonesLeft[player];
+                changes |= STONES;
+            }
+            if (scores[player] != playerScores[player]) {
+                scores[player] = playerScores[player];
+                changes |= SCORE;
+            }
+            if (changes != 0) {
+                fire(player, changes);
+            }
+        }
+    }
+
+    /**
+     * Mark whose turn it is (-1 for nobody).
+     */
+    public void setActivePlayer(int player) {
+        int previous = activePlayer;
+        if (player == previous) {
+            return;
+        }
+        activePlayer = player;
+        if (previous >= 0) {
+            fire(previous, ACTIVE);
+        }
+        if (player >= 0) {
+            fire(player, ACTIVE);
+        }
+    }
+
+    private void fire(int player, int changes) {
+        for (Listener listener : listeners) {
+            listener.playerChanged(player, changes);
+        }
+    }
+
+    // -------------------- Getters --------------------
+
+    public int getPlayerCount() {
+        return names.length;
+    }
+
+    public String getName(int player) {
+        return names[player];
+    }
+
+    public Color getColor(int player) {
+        return colors[player];
+    }
+
+    public int getStonesLeft(int player) {
+        return stonesLeft[player];
+    }
+
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    public boolean isActive(int player) {
+        return player == activePlayer;
+    }
+}
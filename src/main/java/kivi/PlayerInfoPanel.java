@@ -0,0 +1,96 @@
+package kivi;
+
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * One row per player showing a PlayerInfoModel. The rows are built once;
+ * each is a fixed-size component sized for the widest stats it can show,
+ * so a change repaints just that row and never triggers a relayout.
+ * Swing thread only.
+ */
+public class PlayerInfoPanel extends JPanel implements PlayerInfoModel.Listener {
+    private static final int MAX_SCORE_DIGITS = 4;
+
+    private final PlayerInfoModel model;
+    private final PlayerRow[] rows;
+
+    public PlayerInfoPanel(PlayerInfoModel model) {
+        this.model = model;
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setOpaque(false);
+        setAlignmentX(LEFT_ALIGNMENT);
+        rows = new PlayerRow[model.getPlayerCount()];
+        for (int player = 0; player < rows.length; player++) {
+            rows[player] = new PlayerRow(player);
+            add(rows[player]);
+        }
+        model.addListener(this);
+    }
+
+    @Override
+    public void playerChanged(int player, int changes) {
+        rows[player].update(changes);
+    }
+
+    /**
+     * "Name - Stones: N | Score: S", bold with a marker while it is the
+     * player's turn.
+     */
+    private class PlayerRow extends JComponent {
+        private static final int MARKER = 12;
+        private static final int PADDING = 5;
+
+        private final int player;
+        private final Font plainFont;
+        private final Font activeFont;
+        private String text;
+
+        PlayerRow(int player) {
+            this.player = player;
+            Font font = UIManager.getFont("Label.font");
+            plainFont = font != null ? font : new Font("Dialog", Font.PLAIN, 12);
+            activeFont = plainFont.deriveFont(Font.BOLD);
+            setAlignmentX(LEFT_ALIGNMENT);
+            update(PlayerInfoModel.NAME);
+        }
+
+        void update(int changes) {
+            if ((changes & PlayerInfoModel.NAME) != 0) {
+                // The widest the stats can get, so the size never changes
+                FontMetrics metrics = getFontMetrics(activeFont);
+                String widest = format(GameState.STONES_PER_PLAYER, (int) Math.pow(10, MAX_SCORE_DIGITS) - 1);
+                Dimension size = new Dimension(2 * PADDING + MARKER + metrics.stringWidth(widest),
+                        2 * PADDING + metrics.getHeight());
+                setPreferredSize(size);
+                setMinimumSize(size);
+                setMaximumSize(size);
+                revalidate();
+            }
+            text = format(model.getStonesLeft(player), model.getScore(player));
+            repaint();
+        }
+
+        private String format(int stones, int score) {
+            return model.getName(player) + " - Stones: " + stones + " | Score: " + score;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            boolean active = model.isActive(player);
+            g2d.setFont(active ? activeFont : plainFont);
+            g2d.setColor(model.getColor(player));
+            FontMetrics metrics = g2d.getFontMetrics();
+            int baseline = PADDING + metrics.getAscent();
+            if (active) {
+                int middle = baseline - metrics.getAscent() / 2;
+                g2d.fillPolygon(new int[] { PADDING, PADDING + MARKER - 4, PADDING },
+                        new int[] { middle - 4, middle, middle + 4 }, 3);
+            }
+            g2d.drawString(text, PADDING + MARKER, baseline);
+        }
+    }
+}
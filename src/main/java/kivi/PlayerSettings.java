@@ -1,3 +1,5 @@
+package kivi;
+
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
@@ -14,7 +16,7 @@ public class PlayerSettings extends JDialog {
     public PlayerSettings(JFrame parent, int playerCount, JComboBox<String>[] difficultyDropdowns, 
                           JComboBox<String>[] colorDropdowns, BobbleheadPanel[] bobbleheads, boolean[] isHuman) {
         super(parent, "Game Settings", true);
-        this.setSize(600, 400);
+        this.setSize(600, Math.max(400, 100 + playerCount * 75));
         this.setLocationRelativeTo(parent);
         
         this.playerCount = playerCount;
@@ -100,7 +102,7 @@ public class PlayerSettings extends JDialog {
     
     // This method updates each color drop-down to remove colors that are already chosen by other players.
     private void updateColorOptions() {
-        String[] allColors = {"Blue", "Red", "Green", "Orange", "Purple", "Black"};
+        String[] allColors = {"Blue", "Red", "Green", "Orange", "Purple", "Black", "Teal", "Brown"};
         for (int i = 0; i < playerCount; i++) {
             DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
             // Collect colors taken by other players.
@@ -133,6 +135,8 @@ public class PlayerSettings extends JDialog {
             case "Orange": return new Color(255, 165, 0);
             case "Purple": return new Color(128, 0, 128);
             case "Black": return new Color(30, 30, 30);
+            case "Teal": return new Color(0, 128, 128);
+            case "Brown": return new Color(139, 69, 19);
             default: return Color.GRAY;
         }
     }
@@ -0,0 +1,231 @@
+package kivi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Exact odds of reaching each combination (PlaceAPiece.COMBINATIONS) from
+ * a kept-dice multiset:
+ * - The 6 - |kept| other dice are rolled now
+ * - Then up to 'rollsLeft' (0-2) more rerolls follow, keeping whatever
+ *   gives the best chance at that combination
+ * The combination is reached if some subset of the final six dice fulfills it.
+ *
+ * The table (924 multisets x 3 x 13 floats) is generated once into a
+ * binary file and memory-mapped, so lookups are O(1) reads from the page
+ * cache. The header carries a version, a fingerprint of the combination
+ * list and a CRC32 of the payload; a missing or stale file is rebuilt.
+ * MoveAdvisor reads it for the odds it shows with reroll hints.
+ */
+public final class RerollProbabilities {
+    public static final int MAX_ROLLS_LEFT = RollADice.MAX_ROLLS - 1;
+
+    private static final int MAGIC = 0x4B495650; // "KIVP"
+    private static final int VERSION = 1;
+    private static final int LEVELS = MAX_ROLLS_LEFT + 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int PAYLOAD_BYTES =
+            DiceHistogram.MULTISET_COUNT * LEVELS * PlaceAPiece.COMBINATIONS.length * Float.BYTES;
+
+    private static RerollProbabilities shared;
+
+    private final MappedByteBuffer table;
+
+    private RerollProbabilities(MappedByteBuffer table) {
+        this.table = table;
+    }
+
+    /**
+     * The table from the default location (~/.kivi/reroll-probabilities.bin,
+     * or the kivi.probabilityTable system property), loaded on first use.
+     */
+    public static synchronized RerollProbabilities getShared() throws IOException {
+        if (shared == null) {
+            String override = System.getProperty("kivi.probabilityTable");
+            Path path = override != null
+                    ? Paths.get(override)
+                    : Paths.get(System.getProperty("user.home"), ".kivi", "reroll-probabilities.bin");
+            shared = load(path);
+        }
+        return shared;
+    }
+
+    /**
+     * Map the table at 'path', generating (or regenerating) it first if the
+     * file is missing, from another version or fails its checksum.
+     */
+    public static RerollProbabilities load(Path path) throws IOException {
+        // Checked from a copy: a stale file is never mapped, so nothing holds it while it is replaced
+        if (Files.exists(path) && isValid(ByteBuffer.wrap(Files.readAllBytes(path)))) {
+            return new RerollProbabilities(map(path));
+        }
+        write(path, generate());
+        MappedByteBuffer table = map(path);
+        if (!isValid(table)) {
+            throw new IOException("Probability table failed validation after writing: " + path);
+        }
+        return new RerollProbabilities(table);
+    }
+
+    /**
+     * Whether 'rules' have the combinations the table is for, those of the
+     * standard board (as on every BoardRules.standard(size) board).
+     */
+    public static boolean covers(BoardRules rules) {
+        if (rules.getCombinationCount() != PlaceAPiece.COMBINATIONS.length) {
+            return false;
+        }
+        for (int combination = 0; combination < PlaceAPiece.COMBINATIONS.length; combination++) {
+            if (!rules.getCombinationName(combination).equals(PlaceAPiece.COMBINATIONS[combination])) {
+                return false;
+            }
+        }
+        for (int index = 0; index < DiceHistogram.MULTISET_COUNT; index++) {
+            int histogram = DiceHistogram.byIndex(index);
+            if (rules.getCombinationMask(histogram) != PlaceAPiece.getCombinationMask(histogram)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Probability of ending on the given combination when keeping
+     * 'keptHistogram', rolling the rest now and having 'rollsLeft' rerolls after.
+     */
+    public float get(int keptHistogram, int rollsLeft, int combination) {
+        int entry = (DiceHistogram.index(keptHistogram) * LEVELS + rollsLeft)
+                * PlaceAPiece.COMBINATIONS.length + combination;
+        return table.getFloat(HEADER_BYTES + entry * Float.BYTES);
+    }
+
+    // -------------------- File format --------------------
+
+    private static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static boolean isValid(ByteBuffer table) {
+        if (table.capacity() != HEADER_BYTES + PAYLOAD_BYTES
+                || table.getInt(0) != MAGIC
+                || table.getInt(4) != VERSION
+                || table.getInt(8) != fingerprint()
+                || table.getInt(12) != DiceHistogram.MULTISET_COUNT
+                || table.getInt(16) != LEVELS
+                || table.getInt(20) != PlaceAPiece.COMBINATIONS.length) {
+            return false;
+        }
+        ByteBuffer payload = table.duplicate();
+        payload.position(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return table.getLong(24) == crc.getValue();
+    }
+
+    private static void write(Path path, float[] probabilities) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + PAYLOAD_BYTES);
+        buffer.position(HEADER_BYTES);
+        for (float probability : probabilities) {
+            buffer.putFloat(probability);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_BYTES, PAYLOAD_BYTES);
+        buffer.putInt(0, MAGIC)
+                .putInt(4, VERSION)
+                .putInt(8, fingerprint())
+                .putInt(12, DiceHistogram.MULTISET_COUNT)
+                .putInt(16, LEVELS)
+                .putInt(20, PlaceAPiece.COMBINATIONS.length)
+                .putLong(24, crc.getValue());
+
+        // Write next to the target and move it in place, so readers never see half a file
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "reroll-probabilities", ".tmp");
+        try {
+            Files.write(temp, buffer.array());
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Changes whenever the combination list or rules change, invalidating old files
+    private static int fingerprint() {
+        int hash = String.join("|", PlaceAPiece.COMBINATIONS).hashCode();
+        for (int index = 0; index < DiceHistogram.MULTISET_COUNT; index++) {
+            hash = 31 * hash + PlaceAPiece.getCombinationMask(DiceHistogram.byIndex(index));
+        }
+        return hash;
+    }
+
+    // -------------------- Generation --------------------
+
+    /**
+     * Compute the whole table: for each combination, a small Markov chain
+     * over six-dice rolls and kept multisets, solved bottom-up by rolls left.
+     */
+    private static float[] generate() {
+        int combinations = PlaceAPiece.COMBINATIONS.length;
+        int[] sixDice = DiceHistogram.outcomes(DiceHistogram.MAX_DICE);
+
+        // Combinations some subset of each six-dice roll fulfills
+        int[] reachable = new int[DiceHistogram.MULTISET_COUNT];
+        for (int roll : sixDice) {
+            int rollIndex = DiceHistogram.index(roll);
+            for (int subset : DiceHistogram.subsets(rollIndex)) {
+                reachable[rollIndex] |= PlaceAPiece.getCombinationMask(subset);
+            }
+        }
+
+        float[] probabilities = new float[DiceHistogram.MULTISET_COUNT * LEVELS * combinations];
+        double[] rollValue = new double[DiceHistogram.MULTISET_COUNT];
+        double[] keepValue = new double[DiceHistogram.MULTISET_COUNT];
+        for (int combination = 0; combination < combinations; combination++) {
+            // No rerolls after this roll: it counts only if the six dice make it
+            for (int roll : sixDice) {
+                int rollIndex = DiceHistogram.index(roll);
+                rollValue[rollIndex] = (reachable[rollIndex] & (1 << combination)) != 0 ? 1 : 0;
+            }
+            for (int rollsLeft = 0; rollsLeft < LEVELS; rollsLeft++) {
+                if (rollsLeft > 0) {
+                    // One more reroll: stop if made, else keep the best subset
+                    for (int roll : sixDice) {
+                        int rollIndex = DiceHistogram.index(roll);
+                        double best = rollValue[rollIndex];
+                        for (int kept : DiceHistogram.subsets(rollIndex)) {
+                            if (DiceHistogram.size(kept) < DiceHistogram.MAX_DICE) {
+                                best = Math.max(best, keepValue[DiceHistogram.index(kept)]);
+                            }
+                        }
+                        rollValue[rollIndex] = best;
+                    }
+                }
+                for (int kept = 0; kept < DiceHistogram.MULTISET_COUNT; kept++) {
+                    int keptHistogram = DiceHistogram.byIndex(kept);
+                    int rolled = DiceHistogram.MAX_DICE - DiceHistogram.size(keptHistogram);
+                    int[] outcomes = DiceHistogram.outcomes(rolled);
+                    double[] outcomeProbabilities = DiceHistogram.outcomeProbabilities(rolled);
+                    double expected = 0;
+                    for (int i = 0; i < outcomes.length; i++) {
+                        expected += outcomeProbabilities[i]
+                                * rollValue[DiceHistogram.index(keptHistogram + outcomes[i])];
+                    }
+                    keepValue[kept] = expected;
+                    probabilities[(kept * LEVELS + rollsLeft) * combinations + combination] = (float) expected;
+                }
+            }
+        }
+        return probabilities;
+    }
+}
@@ -0,0 +1,225 @@
+package kivi;
+
+import java.util.SplittableRandom;
+
+/**
+ * A helper class to manage all dice logic:
+ * - Rolling up to 3 times
+ * - Tracking which dice are selected
+ * - Storing dice face values
+ * Besides the arrays, the kept dice are available as a 6-bit keep mask
+ * (bit i = die i) and both the kept dice and the whole roll as packed
+ * DiceHistograms, kept up to date so callers never build value lists.
+ *
+ * The dice come from a seeded SplittableRandom, so the same seed and the
+ * same decisions always give the same rolls (see GameReplay).
+ */
+public class RollADice {
+    public static final int MAX_ROLLS = 3;
+
+    private int[] diceValues; // Stores current face values (1-6) for 6 dice
+    private boolean[] diceSelected;
+    private int rollCount; // How many times we've rolled this turn
+    private int keepMask; // Bit i set when die i is selected
+    private int keptHistogram; // DiceHistogram of the selected dice
+    private int rollHistogram; // DiceHistogram of all six dice
+
+    private long seed;
+    private SplittableRandom random;
+
+    /**
+     * Dice with a fresh random seed (see getSeed).
+     */
+    public RollADice() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Dice that roll the same sequence for the same seed.
+     */
+    public RollADice(long seed) {
+        diceValues = new int[6];
+        diceSelected = new boolean[6];
+        rollCount = 0;
+        reseed(seed);
+        clearSelection();
+    }
+
+    /**
+     * Restart the dice's random sequence from a seed, e.g. for the next
+     * game or simulation run with the same dice object.
+     */
+    public void reseed(long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Roll the dice. If it's the first roll, roll all.
+     * If subsequent rolls, re-roll only dice that are NOT selected
+     * (unless none are selected, in which case roll them all).
+     */
+    public void rollDice() {
+        if (rollCount >= MAX_ROLLS) {
+            return; // Already rolled 3 times, no more rolling
+        }
+
+        if (rollCount == 0) {
+            // First roll: roll all dice
+            for (int i = 0; i < 6; i++) {
+                diceValues[i] = random.nextInt(6) + 1; // [1..6]
+            }
+            clearSelection();
+        } else {
+            // 2nd or 3rd roll
+            if (keepMask == 0) {
+                // If no dice are selected, re-roll all
+                for (int i = 0; i < 6; i++) {
+                    diceValues[i] = random.nextInt(6) + 1;
+                }
+                clearSelection();
+            } else {
+                // Otherwise, only re-roll dice that are NOT selected
+                for (int i = 0; i < 6; i++) {
+                    if (!diceSelected[i]) {
+                        diceValues[i] = random.nextInt(6) + 1;
+                    }
+                }
+            }
+        }
+
+        rollHistogram = DiceHistogram.of(diceValues, 0x3F);
+        rollCount++;
+    }
+
+    /**
+     * Roll with known results instead of the random source, e.g. when
+     * replaying a saved game. Follows the same rules as rollDice; the
+     * values of kept dice must be unchanged.
+     */
+    public void applyRoll(int[] values) {
+        if (rollCount >= MAX_ROLLS) {
+            return;
+        }
+        if (rollCount == 0 || keepMask == 0) {
+            clearSelection();
+        }
+        System.arraycopy(values, 0, diceValues, 0, 6);
+        rollHistogram = DiceHistogram.of(diceValues, 0x3F);
+        rollCount++;
+    }
+
+    /**
+     * Put the dice back to a saved point of a turn.
+     */
+    public void restore(int[] values, int mask, int rolls) {
+        System.arraycopy(values, 0, diceValues, 0, 6);
+        rollCount = rolls;
+        rollHistogram = rolls == 0 ? DiceHistogram.EMPTY : DiceHistogram.of(diceValues, 0x3F);
+        setKeepMask(mask);
+    }
+
+    /**
+     * Toggle whether a specific die is 'locked' (kept) or not.
+     * Typically only meaningful after the first roll.
+     */
+    public void toggleDieSelection(int dieIndex) {
+        // If we haven't rolled yet, there's nothing to toggle
+        if (rollCount == 0)
+            return;
+        diceSelected[dieIndex] = !diceSelected[dieIndex];
+        keepMask ^= 1 << dieIndex;
+        if (diceSelected[dieIndex]) {
+            keptHistogram = DiceHistogram.add(keptHistogram, diceValues[dieIndex]);
+        } else {
+            keptHistogram = DiceHistogram.remove(keptHistogram, diceValues[dieIndex]);
+        }
+    }
+
+    /**
+     * Reset the dice arrays so they're fresh for a new turn.
+     */
+    public void resetForNextTurn() {
+        rollCount = 0;
+        for (int i = 0; i < 6; i++) {
+            diceValues[i] = 0;
+        }
+        clearSelection();
+        rollHistogram = DiceHistogram.EMPTY;
+    }
+
+    private void clearSelection() {
+        for (int i = 0; i < 6; i++) {
+            diceSelected[i] = false;
+        }
+        keepMask = 0;
+        keptHistogram = DiceHistogram.EMPTY;
+    }
+
+    // -------------------- Getters / Setters --------------------
+
+    /**
+     * The seed the current random sequence started from.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    public int[] getDiceValues() {
+        return diceValues;
+    }
+
+    public boolean[] getDiceSelected() {
+        return diceSelected;
+    }
+
+    public int getRollCount() {
+        return rollCount;
+    }
+
+    /**
+     * Selected dice as a 6-bit mask, bit i = die i.
+     */
+    public int getKeepMask() {
+        return keepMask;
+    }
+
+    /**
+     * Packed DiceHistogram of the selected dice.
+     */
+    public int getKeptHistogram() {
+        return keptHistogram;
+    }
+
+    /**
+     * Packed DiceHistogram of all six dice of the current roll.
+     */
+    public int getRollHistogram() {
+        return rollHistogram;
+    }
+
+    /**
+     * In case you need to programmatically set an entire selection array
+     * (e.g., CPU logic).
+     */
+    public void setDiceSelected(boolean[] newSelections) {
+        int mask = 0;
+        for (int i = 0; i < 6; i++) {
+            if (newSelections[i]) {
+                mask |= 1 << i;
+            }
+        }
+        setKeepMask(mask);
+    }
+
+    /**
+     * Same as setDiceSelected, with the selection given as a keep mask.
+     */
+    public void setKeepMask(int mask) {
+        for (int i = 0; i < 6; i++) {
+            diceSelected[i] = (mask & (1 << i)) != 0;
+        }
+        keepMask = mask & 0x3F;
+        keptHistogram = DiceHistogram.of(diceValues, keepMask);
+    }
+}
@@ -0,0 +1,175 @@
+package kivi;
+
+/**
+ * Kivi's end-of-game scoring, as described in the instruction manual:
+ * - Every contiguous horizontal or vertical run of at least two of a
+ *   player's stones scores (sum of its square points) x (run length)
+ * - A stone in no such run scores its square's points once
+ * A stone can count in both a horizontal and a vertical run.
+ *
+ * Everything works on the per-player row and column patterns of GameState.
+ * The change caused by one more stone (scoreDelta) only depends on the run
+ * it joins in its row and in its column, found with a couple of bit scans
+ * and priced from per-line prefix sums of the square points, plus the
+ * stones next to it for the lone-stone points. That is a fixed handful of
+ * operations whatever the board size, cheap enough to call millions of
+ * times inside search. Boards up to TABLE_MAX_SIZE (the standard 7x7
+ * included) also get each line's run points per stone pattern up front,
+ * so there a run change is just two table reads; the tables grow as
+ * 2^boardSize per line, too big past that.
+ */
+public class RunScorer {
+    public static final int TABLE_MAX_SIZE = 8;
+
+    private final int boardSize;
+    private final int[] squarePoints;
+    private final int[][] rowSums;    // [row][k]: points of the row's first k squares
+    private final int[][] columnSums; // [col][k]: points of the column's first k squares
+    private final int[][] rowScores;    // [row][pattern]: run points, or null past TABLE_MAX_SIZE
+    private final int[][] columnScores; // [col][pattern]: run points, or null past TABLE_MAX_SIZE
+
+    public RunScorer(int boardSize, int[] squarePoints) {
+        this.boardSize = boardSize;
+        this.squarePoints = squarePoints.clone();
+        rowSums = new int[boardSize][boardSize + 1];
+        columnSums = new int[boardSize][boardSize + 1];
+        for (int i = 0; i < boardSize; i++) {
+            for (int j = 0; j < boardSize; j++) {
+                rowSums[i][j + 1] = rowSums[i][j] + squarePoints[i * boardSize + j];
+                columnSums[i][j + 1] = columnSums[i][j] + squarePoints[j * boardSize + i];
+            }
+        }
+        rowScores = boardSize <= TABLE_MAX_SIZE ? lineTables(rowSums) : null;
+        columnScores = boardSize <= TABLE_MAX_SIZE ? lineTables(columnSums) : null;
+    }
+
+    private static int[][] lineTables(int[][] sums) {
+        int[][] scores = new int[sums.length][1 << sums.length];
+        for (int i = 0; i < sums.length; i++) {
+            for (int pattern = 0; pattern < scores[i].length; pattern++) {
+                scores[i][pattern] = lineScore(pattern, sums[i]);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * How much the player's score changes if they put a stone on 'square'.
+     */
+    public int scoreDelta(GameState state, int player, int square) {
+        int row = square / boardSize;
+        int col = square % boardSize;
+        int rowPattern = state.getRowPattern(player, row);
+        int columnPattern = state.getColumnPattern(player, col);
+        return runDelta(row, col, rowPattern, columnPattern)
+                + singleDelta(state, player, row, col, rowPattern, columnPattern);
+    }
+
+    /**
+     * How much the player's score changes if they lose their stone on
+     * 'square' (zero or less), e.g. when it is captured.
+     */
+    public int removalDelta(GameState state, int player, int square) {
+        int row = square / boardSize;
+        int col = square % boardSize;
+        int rowPattern = state.getRowPattern(player, row) & ~(1 << col);
+        int columnPattern = state.getColumnPattern(player, col) & ~(1 << row);
+        return -(runDelta(row, col, rowPattern, columnPattern)
+                + singleDelta(state, player, row, col, rowPattern, columnPattern));
+    }
+
+    /**
+     * The player's full score, recomputed from their stones.
+     */
+    public int score(GameState state, int player) {
+        int score = 0;
+        for (int i = 0; i < boardSize; i++) {
+            int rowPattern = state.getRowPattern(player, i);
+            int columnPattern = state.getColumnPattern(player, i);
+            score += rowScores != null ? rowScores[i][rowPattern] : lineScore(rowPattern, rowSums[i]);
+            score += columnScores != null ? columnScores[i][columnPattern] : lineScore(columnPattern, columnSums[i]);
+        }
+        for (int square = 0; square < squarePoints.length; square++) {
+            if (state.getOwner(square) == player) {
+                score += lonePoints(state, player, square / boardSize, square % boardSize, -1);
+            }
+        }
+        return score;
+    }
+
+    // Change in run points of the row and column when a stone is added at (row, col)
+    private int runDelta(int row, int col, int rowPattern, int columnPattern) {
+        if (rowScores != null) {
+            return rowScores[row][rowPattern | (1 << col)] - rowScores[row][rowPattern]
+                    + columnScores[col][columnPattern | (1 << row)] - columnScores[col][columnPattern];
+        }
+        return lineDelta(rowPattern, col, rowSums[row]) + lineDelta(columnPattern, row, columnSums[col]);
+    }
+
+    // Change in run points of a line when a stone is added at 'position' (not in 'pattern')
+    private static int lineDelta(int pattern, int position, int[] sums) {
+        // Own stones right before and right after it, joined into one run by the new stone
+        int before = position == 0 ? 0 : Integer.numberOfLeadingZeros(~(pattern << (Integer.SIZE - position)));
+        int after = Integer.numberOfTrailingZeros(~(pattern >>> (position + 1)));
+        int start = position - before;
+        return runScore(sums, start, before + 1 + after) - runScore(sums, start, before)
+                - runScore(sums, position + 1, after);
+    }
+
+    // Run points of every run in a line
+    private static int lineScore(int pattern, int[] sums) {
+        int score = 0;
+        while (pattern != 0) {
+            int start = Integer.numberOfTrailingZeros(pattern);
+            int length = Integer.numberOfTrailingZeros(~(pattern >>> start));
+            score += runScore(sums, start, length);
+            pattern &= ~(((1 << length) - 1) << start);
+        }
+        return score;
+    }
+
+    // (points in run) x (run length) for runs of 2+ stones
+    private static int runScore(int[] sums, int start, int length) {
+        return length >= 2 ? (sums[start + length] - sums[start]) * length : 0;
+    }
+
+    // Change in lone-stone points when a stone is added at (row, col), treated as not the player's yet:
+    // it scores alone if no own stone is next to it, and own neighbours that were alone stop scoring.
+    // Its own row and column patterns tell which neighbours are there without reading the board
+    private int singleDelta(GameState state, int player, int row, int col, int rowPattern, int columnPattern) {
+        int square = row * boardSize + col;
+        int horizontal = rowPattern & ((2 << col) | (1 << col >>> 1));
+        int vertical = columnPattern & ((2 << row) | (1 << row >>> 1));
+        if ((horizontal | vertical) == 0) {
+            return squarePoints[square];
+        }
+        int delta = 0;
+        if ((vertical & (1 << row >>> 1)) != 0) {
+            delta -= lonePoints(state, player, row - 1, col, square);
+        }
+        if ((vertical & (2 << row)) != 0) {
+            delta -= lonePoints(state, player, row + 1, col, square);
+        }
+        if ((horizontal & (1 << col >>> 1)) != 0) {
+            delta -= lonePoints(state, player, row, col - 1, square);
+        }
+        if ((horizontal & (2 << col)) != 0) {
+            delta -= lonePoints(state, player, row, col + 1, square);
+        }
+        return delta;
+    }
+
+    // Points of the player's stone at (row, col) if no own stone but one on 'ignored' is next to it, else 0
+    private int lonePoints(GameState state, int player, int row, int col, int ignored) {
+        int square = row * boardSize + col;
+        int above = square - boardSize;
+        int below = square + boardSize;
+        if ((row > 0 && above != ignored && state.getOwner(above) == player)
+                || (row + 1 < boardSize && below != ignored && state.getOwner(below) == player)
+                || (col > 0 && square - 1 != ignored && state.getOwner(square - 1) == player)
+                || (col + 1 < boardSize && square + 1 != ignored && state.getOwner(square + 1) == player)) {
+            return 0;
+        }
+        return squarePoints[square];
+    }
+}
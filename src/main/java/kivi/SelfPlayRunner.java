@@ -0,0 +1,245 @@
+package kivi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless self-play: plays N complete games between CPU strategies,
+ * without any Swing, spread over all cores.
+ * - Each worker owns its engine, strategies and dice; game g's dice are
+ *   seeded from (seed, g), so results do not depend on thread scheduling
+ * - Workers take game numbers from a shared atomic counter and keep their
+ *   own tallies, merged once at the end (no locks while playing)
+ * - Strategies rotate through the seats game by game, since moving first
+ *   is an advantage
+ * - With --record, every game's replay log goes to DIR/game-g.kivr, for
+ *   regression runs with GameReplay
+ * - With --board, games are played on the board defined in FILE (see
+ *   BoardRules) instead of the standard one
+ *
+ * Usage: java kivi.SelfPlayRunner [--games N] [--players easy,hard,...]
+ *                                 [--threads T] [--seed S] [--record DIR]
+ *                                 [--board FILE]
+ */
+public class SelfPlayRunner {
+    private static final int MAX_TURNS = 1000; // safety cap for games that never fill up
+    private static final int LENGTH_BINS = 101; // turns 0..99, last bin = 100 or more
+
+    private final String[] strategyNames;
+    private final int games;
+    private final int threads;
+    private final long seed;
+    private final Path recordDirectory; // null: no replay logs
+    private final BoardRules rules;
+
+    public SelfPlayRunner(String[] strategyNames, int games, int threads, long seed, Path recordDirectory,
+            BoardRules rules) {
+        this.strategyNames = strategyNames;
+        this.games = games;
+        this.threads = threads;
+        this.seed = seed;
+        this.recordDirectory = recordDirectory;
+        this.rules = rules;
+    }
+
+    /**
+     * Per-strategy tallies (by position in the strategy list), plus
+     * game lengths. One per worker, merged at the end.
+     */
+    public static class Results {
+        final double[] wins;
+        final long[] scoreSum;
+        final long[] scoreSquareSum;
+        final long[] lengthCounts = new long[LENGTH_BINS];
+        long games;
+        long turns;
+
+        Results(int strategies) {
+            wins = new double[strategies];
+            scoreSum = new long[strategies];
+            scoreSquareSum = new long[strategies];
+        }
+
+        void merge(Results other) {
+            for (int i = 0; i < wins.length; i++) {
+                wins[i] += other.wins[i];
+                scoreSum[i] += other.scoreSum[i];
+                scoreSquareSum[i] += other.scoreSquareSum[i];
+            }
+            for (int i = 0; i < LENGTH_BINS; i++) {
+                lengthCounts[i] += other.lengthCounts[i];
+            }
+            games += other.games;
+            turns += other.turns;
+        }
+
+        public double getWinRate(int strategy) {
+            return wins[strategy] / games;
+        }
+
+        public double getMeanScore(int strategy) {
+            return (double) scoreSum[strategy] / games;
+        }
+
+        public double getScoreVariance(int strategy) {
+            double mean = getMeanScore(strategy);
+            return (double) scoreSquareSum[strategy] / games - mean * mean;
+        }
+    }
+
+    public Results run() throws Exception {
+        AtomicInteger nextGame = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Results>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> playGames(nextGame)));
+            }
+            Results total = new Results(strategyNames.length);
+            for (Future<Results> worker : workers) {
+                total.merge(worker.get());
+            }
+            return total;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Results playGames(AtomicInteger nextGame) throws IOException {
+        int playerCount = strategyNames.length;
+        CpuStrategy[] strategies = new CpuStrategy[playerCount];
+        for (int i = 0; i < playerCount; i++) {
+            strategies[i] = CpuStrategy.forDifficulty(capitalize(strategyNames[i]));
+        }
+        RollADice dice = new RollADice(seed);
+        GameEngine engine = new GameEngine(rules, playerCount, dice);
+        GameState state = engine.getState();
+        Results results = new Results(playerCount);
+
+        int game;
+        while ((game = nextGame.getAndIncrement()) < games) {
+            long gameSeed = seed ^ (game * 0x9E3779B97F4A7C15L);
+            dice.reseed(gameSeed);
+            state.reset();
+            GameReplay replay = null;
+            if (recordDirectory != null) {
+                replay = GameReplay.create(recordDirectory.resolve("game-" + game + ".kivr"), gameSeed,
+                        rules, playerCount);
+                engine.setReplay(replay);
+            }
+            int rotation = game % playerCount; // seat s is played by strategy (s + rotation) % n
+            int turns = 0;
+            while (!engine.isGameOver() && turns < MAX_TURNS) {
+                int seat = state.getCurrentPlayer();
+                engine.playCpuTurn(strategies[(seat + rotation) % playerCount]);
+                turns++;
+            }
+            if (replay != null) {
+                engine.setReplay(null);
+                replay.close();
+            }
+
+            int topScore = Integer.MIN_VALUE;
+            int topCount = 0;
+            for (int seat = 0; seat < playerCount; seat++) {
+                int score = state.getScore(seat);
+                int strategy = (seat + rotation) % playerCount;
+                results.scoreSum[strategy] += score;
+                results.scoreSquareSum[strategy] += (long) score * score;
+                if (score > topScore) {
+                    topScore = score;
+                    topCount = 1;
+                } else if (score == topScore) {
+                    topCount++;
+                }
+            }
+            for (int seat = 0; seat < playerCount; seat++) {
+                if (state.getScore(seat) == topScore) {
+                    results.wins[(seat + rotation) % playerCount] += 1.0 / topCount;
+                }
+            }
+            results.lengthCounts[Math.min(turns, LENGTH_BINS - 1)]++;
+            results.turns += turns;
+            results.games++;
+        }
+        return results;
+    }
+
+    private static String capitalize(String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1).toLowerCase();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 10000;
+        String[] players = { "easy", "hard" };
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = System.nanoTime();
+        Path record = null;
+        BoardRules rules = BoardRules.standard();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--games":
+                    games = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--players":
+                    players = args[i + 1].split(",");
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--record":
+                    record = Paths.get(args[i + 1]);
+                    break;
+                case "--board":
+                    rules = BoardRules.load(Paths.get(args[i + 1]));
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+        if (players.length < GameState.MIN_PLAYERS || players.length > GameState.MAX_PLAYERS) {
+            System.err.println("Need " + GameState.MIN_PLAYERS + " to " + GameState.MAX_PLAYERS
+                    + " players, got " + players.length);
+            System.exit(1);
+        }
+        for (String player : players) {
+            if (!Arrays.asList(CpuStrategy.DIFFICULTIES).contains(capitalize(player))) {
+                System.err.println("Unknown strategy: " + player + " (expected "
+                        + String.join(", ", CpuStrategy.DIFFICULTIES).toLowerCase() + ")");
+                System.exit(1);
+            }
+        }
+
+        SelfPlayRunner runner = new SelfPlayRunner(players, games, threads, seed, record, rules);
+        long start = System.nanoTime();
+        Results results = runner.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games, %d threads, seed %d%n", results.games, threads, seed);
+        System.out.printf("%.1f s, %.0f games/s, %.1f turns/game%n",
+                seconds, results.games / seconds, (double) results.turns / results.games);
+        for (int i = 0; i < players.length; i++) {
+            System.out.printf("  %-8s win %6.2f%%  score mean %7.2f  variance %8.2f%n", players[i],
+                    100 * results.getWinRate(i), results.getMeanScore(i), results.getScoreVariance(i));
+        }
+        System.out.println("Game length (turns: games):");
+        for (int turns = 0; turns < LENGTH_BINS; turns++) {
+            if (results.lengthCounts[turns] > 0) {
+                System.out.printf("  %s%d: %d%n", turns == LENGTH_BINS - 1 ? ">=" : "", turns,
+                        results.lengthCounts[turns]);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package kivi;
+
+import java.awt.*;
+import javax.swing.*;
+
+/**
+ * Shows "Time left: S.Ds" counting down to a System.nanoTime deadline.
+ * One Swing timer checks the time every few milliseconds, but the label
+ * only repaints when the tenth of a second it shows changes. The text is
+ * written into a reused char buffer, and the size is fixed for the longest
+ * time it can show, so a tick never allocates or relayouts.
+ * Swing thread only.
+ */
+public class TurnClockLabel extends JComponent {
+    private static final String PREFIX = "Time left: ";
+    private static final long TENTH_NANOS = 100_000_000L;
+    private static final int TICK_MILLIS = 20;
+
+    private final Timer ticker = new Timer(TICK_MILLIS, e -> tick());
+    private final char[] text = new char[PREFIX.length() + 12];
+    private int textLength;
+    private long deadline;
+    private long shownTenths = -1;
+
+    public TurnClockLabel(int maxSeconds, Font font) {
+        setFont(font);
+        PREFIX.getChars(0, PREFIX.length(), text, 0);
+        FontMetrics metrics = getFontMetrics(font);
+        // Room for at least 4 digits of seconds, as time banks can grow
+        int digits = Math.max(4, String.valueOf(maxSeconds).length());
+        String widest = PREFIX + "8888888888".substring(0, digits) + ".8s";
+        Dimension size = new Dimension(metrics.stringWidth(widest) + 2, metrics.getHeight());
+        setPreferredSize(size);
+        setMinimumSize(size);
+        setMaximumSize(size);
+        setAlignmentX(LEFT_ALIGNMENT);
+        display(maxSeconds * 10L);
+    }
+
+    /**
+     * Count down to 'deadlineNanos' (a System.nanoTime value).
+     */
+    public void start(long deadlineNanos) {
+        deadline = deadlineNanos;
+        tick();
+        ticker.start();
+    }
+
+    /**
+     * Stop counting and keep showing 'remainingNanos'.
+     */
+    public void stop(long remainingNanos) {
+        ticker.stop();
+        display(remainingNanos / TENTH_NANOS);
+    }
+
+    /**
+     * Stop counting and keep showing what is shown.
+     */
+    public void stop() {
+        ticker.stop();
+    }
+
+    private void tick() {
+        long remaining = Math.max(0, deadline - System.nanoTime());
+        // Round up, so the last tenth shows until the time is really gone
+        display((remaining + TENTH_NANOS - 1) / TENTH_NANOS);
+        if (remaining == 0) {
+            ticker.stop(); // the game loop ends the turn itself
+        }
+    }
+
+    private void display(long tenths) {
+        if (tenths == shownTenths) {
+            return;
+        }
+        shownTenths = tenths;
+
+        // PREFIX, then the seconds, the dot, the tenth and 's'
+        int end = text.length;
+        text[--end] = 's';
+        text[--end] = (char) ('0' + tenths % 10);
+        text[--end] = '.';
+        long seconds = tenths / 10;
+        do {
+            text[--end] = (char) ('0' + seconds % 10);
+            seconds /= 10;
+        } while (seconds > 0 && end > PREFIX.length());
+        textLength = PREFIX.length() + text.length - end;
+        System.arraycopy(text, end, text, PREFIX.length(), text.length - end);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setFont(getFont());
+        g2d.setColor(getForeground());
+        g2d.drawChars(text, 0, textLength, 0, g2d.getFontMetrics().getAscent());
+    }
+}